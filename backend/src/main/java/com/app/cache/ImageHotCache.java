@@ -0,0 +1,94 @@
+package com.app.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bytes of the most requested small images (thumbnails, card variants), served
+ * from memory instead of the filesystem. Only content-addressed files are
+ * admitted: their bytes can never change, so there is nothing to invalidate.
+ *
+ * A file is admitted on its second request within the tracking window, so a
+ * crawl over the whole catalog cannot push out the images pages actually show.
+ */
+@Component
+public class ImageHotCache {
+
+    private final long maxBytes;
+    private final int maxFileBytes;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> seenOnce = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    public ImageHotCache(@Value("${app.images.hot-cache.max-bytes:33554432}") long maxBytes,
+            @Value("${app.images.hot-cache.max-file-bytes:65536}") int maxFileBytes) {
+        this.maxBytes = maxBytes;
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    private static final class Entry {
+        final byte[] bytes;
+        volatile long lastAccess = System.nanoTime();
+
+        Entry(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    public byte[] get(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = System.nanoTime();
+        return entry.bytes;
+    }
+
+    /** Whether a file of this size would be cached after {@link #shouldAdmit} says yes. */
+    public boolean fits(long size) {
+        return size <= maxFileBytes;
+    }
+
+    /** Records a miss; true when the file has been requested before and should be loaded. */
+    public boolean shouldAdmit(String name) {
+        if (seenOnce.remove(name) != null) {
+            return true;
+        }
+        if (seenOnce.size() > 10_000) {
+            seenOnce.clear(); // crude window reset, bounds the tracking memory
+        }
+        seenOnce.put(name, Boolean.TRUE);
+        return false;
+    }
+
+    public void put(String name, byte[] bytes) {
+        if (bytes.length > maxFileBytes || entries.putIfAbsent(name, new Entry(bytes)) != null) {
+            return;
+        }
+        if (usedBytes.addAndGet(bytes.length) > maxBytes) {
+            evict();
+        }
+    }
+
+    private synchronized void evict() {
+        while (usedBytes.get() > maxBytes) {
+            Map.Entry<String, Entry> oldest = null;
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                if (oldest == null || candidate.getValue().lastAccess < oldest.getValue().lastAccess) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            if (entries.remove(oldest.getKey(), oldest.getValue())) {
+                usedBytes.addAndGet(-oldest.getValue().bytes.length);
+            }
+        }
+    }
+}
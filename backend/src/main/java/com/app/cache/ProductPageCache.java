@@ -0,0 +1,224 @@
+package com.app.cache;
+
+import com.app.catalog.CatalogQuery;
+import com.app.catalog.ProductChangedEvent;
+import com.app.catalog.StockChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds catalog listing pages as already-encoded JSON (plain and gzip), keyed
+ * by (category, filters, page, size). A hit is a map lookup plus a byte[] write, with no
+ * database connection and no Jackson work.
+ *
+ * Entries remember which product ids they contain, so an update that keeps a
+ * product in its category only drops the pages showing it. Creates, deletes and
+ * category moves shift page boundaries, so those drop every page of the
+ * affected categories and of the unfiltered listing. Pages filtered or sorted
+ * by price or stock can gain or lose rows on any update in their category, so
+ * they are dropped the same way.
+ */
+@Component
+public class ProductPageCache {
+
+    public static final String ALL = "All";
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    // Bumped on every invalidation; a load that started before a bump must not be cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductPageCache(ObjectMapper objectMapper,
+            @Value("${app.cache.product-pages.max-bytes:16777216}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+    }
+
+    public record Key(String category, String filter, int page, int size) {
+        public static Key of(CatalogQuery query, int page, int size) {
+            return new Key(normalize(query.category()), query.filterKey(), page, size);
+        }
+    }
+
+    public static final class Entry {
+        private final String category;
+        private final boolean filtered;
+        private final byte[] json;
+        private final byte[] gzip;
+        private final long[] productIds; // sorted
+        private volatile long lastAccess;
+
+        private Entry(String category, boolean filtered, byte[] json, byte[] gzip, long[] productIds) {
+            this.category = category;
+            this.filtered = filtered;
+            this.json = json;
+            this.gzip = gzip;
+            this.productIds = productIds;
+            this.lastAccess = System.nanoTime();
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        private int weight() {
+            return json.length + gzip.length + productIds.length * Long.BYTES;
+        }
+
+        private boolean contains(long productId) {
+            return Arrays.binarySearch(productIds, productId) >= 0;
+        }
+
+        private boolean containsAny(Set<Long> ids) {
+            for (long id : productIds) {
+                if (ids.contains(id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public static String normalize(String category) {
+        return category == null || category.isBlank() ? ALL : category;
+    }
+
+    public Entry get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.lastAccess = System.nanoTime();
+        }
+        return entry;
+    }
+
+    /** Snapshot to pass to {@link #put} so a load racing an invalidation is discarded. */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Encodes {@code body} and caches it unless the catalog changed since
+     * {@code loadedAtGeneration}. The encoded entry is returned either way.
+     */
+    public Entry put(Key key, long loadedAtGeneration, Object body, long[] productIds) {
+        Entry entry = encode(key, body, productIds);
+        if (generation.get() != loadedAtGeneration || entry.weight() > maxBytes / 8) {
+            return entry;
+        }
+
+        Entry previous = entries.put(key, entry);
+        usedBytes.addAndGet(entry.weight() - (previous != null ? previous.weight() : 0));
+
+        // An invalidation may have scanned the map between the check above and the put
+        if (generation.get() != loadedAtGeneration) {
+            remove(key, entry);
+        }
+        if (usedBytes.get() > maxBytes) {
+            evict();
+        }
+        return entry;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+
+        if (event.type() == ProductChangedEvent.Type.RELOADED) {
+            entries.forEach(this::remove);
+            return;
+        }
+
+        String previous = event.previousCategory();
+        String current = event.currentCategory();
+        if (event.type() == ProductChangedEvent.Type.UPDATED && Objects.equals(previous, current)) {
+            // Same category, same id ordering: only pages that show this product are stale,
+            // plus price/stock filtered pages it may have moved into or out of
+            long id = event.productId();
+            entries.forEach((key, entry) -> {
+                if (entry.contains(id) || entry.filtered
+                        && (ALL.equals(entry.category) || entry.category.equals(current))) {
+                    remove(key, entry);
+                }
+            });
+            return;
+        }
+
+        entries.forEach((key, entry) -> {
+            String category = entry.category;
+            if (ALL.equals(category) || category.equals(previous) || category.equals(current)) {
+                remove(key, entry);
+            }
+        });
+    }
+
+    // Stock changes keep every product in its category and place; only the pages showing
+    // them and the filtered pages (in-stock filter) can be stale
+    @EventListener
+    public void onStockChanged(StockChangedEvent event) {
+        generation.incrementAndGet();
+        Set<Long> ids = event.stock().keySet();
+        entries.forEach((key, entry) -> {
+            if (entry.filtered || entry.containsAny(ids)) {
+                remove(key, entry);
+            }
+        });
+    }
+
+    private void remove(Key key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            usedBytes.addAndGet(-entry.weight());
+        }
+    }
+
+    private synchronized void evict() {
+        while (usedBytes.get() > maxBytes) {
+            Map.Entry<Key, Entry> oldest = null;
+            for (Map.Entry<Key, Entry> candidate : entries.entrySet()) {
+                if (oldest == null || candidate.getValue().lastAccess < oldest.getValue().lastAccess) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private Entry encode(Key key, Object body, long[] productIds) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                gzip.write(json);
+            }
+            long[] ids = productIds.clone();
+            Arrays.sort(ids);
+            return new Entry(key.category(), !key.filter().isEmpty(), json, buffer.toByteArray(), ids);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not encode product page", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not compress product page", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.app.cart;
+
+import java.util.List;
+
+/** What changed in a cart between two revisions, with the totals as of the later one. */
+public record CartChanges(long sinceRevision, long revision, List<CartLine> changed, List<Long> removed,
+        long totalPaise, int lineCount) {
+}
@@ -0,0 +1,9 @@
+package com.app.cart;
+
+/** One product in a cart: its quantity and the unit price (paise) when it was added. */
+public record CartLine(Long productId, int quantity, long pricePaise) {
+
+    public long amount() {
+        return pricePaise * quantity;
+    }
+}
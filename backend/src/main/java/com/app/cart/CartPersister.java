@@ -0,0 +1,136 @@
+package com.app.cart;
+
+import com.app.model.Cart;
+import com.app.model.CartItem;
+import com.app.model.Product;
+import com.app.model.User;
+import com.app.repository.CartRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves carts between {@link CartState} and the cart / cart_items tables. A
+ * save loads all the carts it writes with one query and then only issues the
+ * inserts, updates and deletes for lines that actually differ.
+ *
+ * Each snapshot carries the row version its cart was based on. A save whose row
+ * has moved on since, because another instance wrote the cart, is rejected with
+ * an optimistic locking failure instead of overwriting that write.
+ */
+@Component
+public class CartPersister {
+
+    private final CartRepository cartRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public CartPersister(CartRepository cartRepository, EntityManager entityManager,
+            PlatformTransactionManager transactionManager) {
+        this.cartRepository = cartRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public CartState load(Long userId) {
+        CartState state = new CartState(userId);
+        cartRepository.findByUserId(userId).ifPresent(cart -> {
+            List<CartLine> lines = new ArrayList<>(cart.getItems().size());
+            for (CartItem item : cart.getItems()) {
+                if (item.getProduct() != null) {
+                    lines.add(new CartLine(item.getProduct().getId(),
+                            item.getQuantity() != null ? item.getQuantity() : 0,
+                            item.getPricePaise()));
+                }
+            }
+            state.load(lines, cart.getRevision() != null ? cart.getRevision() : 0, cart.getVersion());
+        });
+        return state;
+    }
+
+    /**
+     * Writes the snapshots in one transaction, or as part of the caller's, and
+     * returns the row version each user's cart is at afterwards.
+     */
+    public Map<Long, Long> save(List<CartSnapshot> snapshots) {
+        if (snapshots.isEmpty()) {
+            return Map.of();
+        }
+        return transactionTemplate.execute(status -> {
+            Map<Long, Cart> carts = new HashMap<>();
+            for (Cart cart : cartRepository.findByUserIdIn(snapshots.stream().map(CartSnapshot::userId).toList())) {
+                carts.put(cart.getUser().getId(), cart);
+            }
+            for (CartSnapshot snapshot : snapshots) {
+                Cart cart = carts.get(snapshot.userId());
+                if (cart == null ? snapshot.version() != null
+                        : snapshot.version() == null || cart.getVersion() != snapshot.version()) {
+                    throw new ObjectOptimisticLockingFailureException(Cart.class, snapshot.userId());
+                }
+                if (cart == null) {
+                    cart = Cart.builder().user(entityManager.getReference(User.class, snapshot.userId())).build();
+                    entityManager.persist(cart);
+                }
+                // Loaded carts are managed: changes and new lines are written at flush.
+                // save() would merge and load every product proxy on the new lines.
+                apply(cart, snapshot);
+                carts.put(snapshot.userId(), cart);
+            }
+            // Versions are bumped (and checked against the row) when the changes are flushed
+            try {
+                entityManager.flush();
+            } catch (OptimisticLockException e) {
+                throw new ObjectOptimisticLockingFailureException("Cart was written concurrently", e);
+            }
+            Map<Long, Long> versions = new HashMap<>();
+            carts.forEach((userId, cart) -> versions.put(userId, cart.getVersion()));
+            return versions;
+        });
+    }
+
+    private void apply(Cart cart, CartSnapshot snapshot) {
+        Map<Long, CartLine> wanted = new HashMap<>();
+        snapshot.lines().forEach(line -> wanted.put(line.productId(), line));
+
+        Iterator<CartItem> items = cart.getItems().iterator();
+        while (items.hasNext()) {
+            CartItem item = items.next();
+            CartLine line = item.getProduct() != null ? wanted.remove(item.getProduct().getId()) : null;
+            if (line == null) {
+                items.remove();
+                continue;
+            }
+            if (item.getQuantity() == null || item.getQuantity() != line.quantity()) {
+                item.setQuantity(line.quantity());
+            }
+            if (item.getPricePaise() != line.pricePaise()) {
+                item.setPricePaise(line.pricePaise());
+            }
+        }
+        for (CartLine line : snapshot.lines()) {
+            if (wanted.containsKey(line.productId())) {
+                cart.getItems().add(CartItem.builder()
+                        .cart(cart)
+                        .product(entityManager.getReference(Product.class, line.productId()))
+                        .quantity(line.quantity())
+                        .pricePaise(line.pricePaise())
+                        .build());
+            }
+        }
+        if (cart.getTotalPaise() != snapshot.totalPaise()) {
+            cart.setTotalPaise(snapshot.totalPaise());
+        }
+        if (cart.getRevision() == null || cart.getRevision() != snapshot.revision()) {
+            cart.setRevision(snapshot.revision());
+        }
+    }
+}
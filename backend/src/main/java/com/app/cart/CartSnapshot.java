@@ -0,0 +1,14 @@
+package com.app.cart;
+
+import java.util.List;
+
+/**
+ * Immutable copy of a {@link CartState}, for persisting and rendering outside its lock.
+ * {@code version} is the cart row version the state is based on, null if there was no row.
+ */
+public record CartSnapshot(Long userId, List<CartLine> lines, long totalPaise, long revision, Long version) {
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+}
@@ -0,0 +1,170 @@
+package com.app.cart;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A user's cart as the application works on it. Mutations run under the
+ * instance lock and bump {@link #revision()}, which the stores use to tell
+ * whether a persisted snapshot is still current and clients use to ask for
+ * only what changed since the cart they already have.
+ */
+public final class CartState {
+
+    // Revisions a client can be behind by and still get a delta
+    static final int HISTORY = 32;
+
+    private record Change(long revision, Collection<Long> productIds) {
+    }
+
+    private final Long userId;
+    private final Map<Long, CartLine> lines = new LinkedHashMap<>();
+    private final Deque<Change> history = new ArrayDeque<>();
+    private long total; // paise, adjusted by each change rather than re-summed
+    private long revision;
+    // Version of the cart row this state was loaded from or last saved as; null while there is no row
+    private Long version;
+    // Oldest revision the history can answer from
+    private long historyStart;
+    // Product id -> revision of its latest change the row does not have yet
+    private final Map<Long, Long> unsaved = new HashMap<>();
+
+    public CartState(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long userId() {
+        return userId;
+    }
+
+    public synchronized long revision() {
+        return revision;
+    }
+
+    public synchronized CartLine line(Long productId) {
+        return lines.get(productId);
+    }
+
+    /** Applies several line changes as one revision, totalling once. */
+    public synchronized void apply(Collection<CartLine> upserts, Collection<Long> removals) {
+        List<Long> touched = new ArrayList<>(upserts.size() + removals.size());
+        for (Long productId : removals) {
+            replace(productId, null);
+            touched.add(productId);
+        }
+        for (CartLine line : upserts) {
+            replace(line.productId(), line);
+            touched.add(line.productId());
+        }
+        changed(touched);
+    }
+
+    public synchronized CartSnapshot snapshot() {
+        return new CartSnapshot(userId, new ArrayList<>(lines.values()), total, revision, version);
+    }
+
+    /**
+     * Lines changed or removed after {@code since}, or null when that revision
+     * is too old (or not one this cart has had) and the client needs the whole cart.
+     */
+    public synchronized CartChanges changesSince(long since) {
+        if (since > revision || since < historyStart) {
+            return null;
+        }
+        Set<Long> touched = new LinkedHashSet<>();
+        Iterator<Change> newestFirst = history.descendingIterator();
+        while (newestFirst.hasNext()) {
+            Change change = newestFirst.next();
+            if (change.revision() <= since) {
+                break;
+            }
+            touched.addAll(change.productIds());
+        }
+        List<CartLine> changed = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        for (Long productId : touched) {
+            CartLine line = lines.get(productId);
+            if (line != null) {
+                changed.add(line);
+            } else {
+                removed.add(productId);
+            }
+        }
+        return new CartChanges(since, revision, changed, removed, total, lines.size());
+    }
+
+    /** Replaces the contents with what was loaded from the database, without counting as a change. */
+    synchronized void load(Iterable<CartLine> loaded, long loadedRevision, long loadedVersion) {
+        lines.clear();
+        total = 0;
+        for (CartLine line : loaded) {
+            replace(line.productId(), line);
+        }
+        revision = loadedRevision;
+        version = loadedVersion;
+        history.clear();
+        historyStart = loadedRevision;
+        unsaved.clear();
+    }
+
+    /**
+     * Records that the snapshot taken at {@code savedRevision} was written and the
+     * row is now at {@code savedVersion}.
+     */
+    public synchronized void saved(long savedVersion, long savedRevision) {
+        if (version == null || savedVersion > version) {
+            version = savedVersion;
+        }
+        unsaved.values().removeIf(changedAt -> changedAt <= savedRevision);
+    }
+
+    /**
+     * Replays the changes not saved yet on top of {@code stored}, a newer copy of
+     * the cart written elsewhere, and takes over its version, so the next save
+     * keeps both writes instead of being rejected again. Clients get the whole
+     * cart on their next delta request.
+     */
+    synchronized void rebase(CartSnapshot stored) {
+        Map<Long, CartLine> mine = new HashMap<>(lines);
+        lines.clear();
+        total = 0;
+        for (CartLine line : stored.lines()) {
+            if (!unsaved.containsKey(line.productId())) {
+                replace(line.productId(), line);
+            }
+        }
+        for (Long productId : unsaved.keySet()) {
+            CartLine line = mine.get(productId);
+            if (line != null) {
+                replace(productId, line);
+            }
+        }
+        revision = Math.max(revision, stored.revision()) + 1;
+        version = stored.version();
+        history.clear();
+        historyStart = revision;
+    }
+
+    private void changed(Collection<Long> productIds) {
+        revision++;
+        productIds.forEach(productId -> unsaved.put(productId, revision));
+        history.addLast(new Change(revision, productIds));
+        if (history.size() > HISTORY) {
+            historyStart = history.removeFirst().revision();
+        }
+    }
+
+    private void replace(Long productId, CartLine line) {
+        CartLine previous = line != null ? lines.put(productId, line) : lines.remove(productId);
+        total += (line != null ? line.amount() : 0) - (previous != null ? previous.amount() : 0);
+    }
+}
@@ -0,0 +1,27 @@
+package com.app.cart;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Where carts live between requests. CartService mutates the returned
+ * {@link CartState} and reports each change; when the change reaches the
+ * database is up to the implementation, except that {@link #flush} must
+ * persist it before returning.
+ *
+ * Chosen with {@code app.cart.store}: {@code write-behind} (default) or {@code database}.
+ */
+public interface CartStore {
+
+    CartState get(Long userId);
+
+    void changed(CartState cart);
+
+    /** Persists the user's pending changes before returning. */
+    void flush(Long userId);
+
+    /**
+     * Held by code that saves a cart through {@link CartPersister} itself, so the
+     * store cannot write a snapshot of the same cart in between.
+     */
+    Lock writeLock();
+}
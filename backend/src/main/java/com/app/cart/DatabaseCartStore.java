@@ -0,0 +1,40 @@
+package com.app.cart;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** Write-through store: every read loads from the database and every change is saved at once. */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "database")
+@RequiredArgsConstructor
+public class DatabaseCartStore implements CartStore {
+
+    private final CartPersister cartPersister;
+    // Writes only happen in changed(), which CartService already runs one at a time per user
+    private final Lock writeLock = new ReentrantLock();
+
+    @Override
+    public CartState get(Long userId) {
+        return cartPersister.load(userId);
+    }
+
+    @Override
+    public void changed(CartState cart) {
+        cartPersister.save(List.of(cart.snapshot()));
+    }
+
+    @Override
+    public void flush(Long userId) {
+        // nothing is ever pending
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+}
@@ -0,0 +1,200 @@
+package com.app.cart;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps recently used carts in memory and writes changes to the database in the
+ * background. Requests only touch the in-memory {@link CartState}; the flusher
+ * saves every cart changed since its last run in one transaction, so a user who
+ * taps "+" five times costs one write instead of five.
+ *
+ * At most {@code app.cart.store.max-carts} carts are cached, least recently used
+ * out first. A cart with unsaved changes stays reachable in the dirty map until
+ * it is written, so eviction never loses an update. Changes made in the last
+ * flush interval are lost if the process dies without a clean shutdown.
+ *
+ * A cart another instance wrote since it was loaded here is not overwritten:
+ * the changes not saved yet are replayed on top of that write and saved with it.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "write-behind", matchIfMissing = true)
+public class WriteBehindCartStore implements CartStore {
+
+    private final CartPersister cartPersister;
+    private final int maxCarts;
+
+    private final Map<Long, CartState> carts;
+    private final Map<Long, CartState> dirty = new ConcurrentHashMap<>();
+    // Serializes writes, so an older snapshot of a cart can never commit after a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public WriteBehindCartStore(CartPersister cartPersister,
+            @Value("${app.cart.store.max-carts:10000}") int maxCarts) {
+        this.cartPersister = cartPersister;
+        this.maxCarts = maxCarts;
+        this.carts = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CartState> eldest) {
+                return size() > WriteBehindCartStore.this.maxCarts;
+            }
+        };
+    }
+
+    @Override
+    public CartState get(Long userId) {
+        CartState cached = cached(userId);
+        if (cached != null) {
+            return cached;
+        }
+        CartState loaded = cartPersister.load(userId);
+        synchronized (carts) {
+            // Another request may have loaded it meanwhile; theirs may already be changed
+            CartState raced = cachedLocked(userId);
+            if (raced != null) {
+                return raced;
+            }
+            carts.put(userId, loaded);
+            return loaded;
+        }
+    }
+
+    @Override
+    public void changed(CartState cart) {
+        synchronized (carts) {
+            dirty.put(cart.userId(), cart);
+            // A request may have reloaded this cart after it was evicted mid-use;
+            // the copy being changed is the current one from now on
+            carts.put(cart.userId(), cart);
+        }
+    }
+
+    @Override
+    public void flush(Long userId) {
+        CartState cart = dirty.get(userId);
+        if (cart == null) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            writeOne(cart);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public Lock writeLock() {
+        return flushLock;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.store.flush-ms:1000}")
+    public void flushAll() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<CartSnapshot> batch = new ArrayList<>(dirty.size());
+            for (CartState cart : dirty.values()) {
+                batch.add(cart.snapshot());
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                // One bad cart should not hold back the rest; the failures stay dirty
+                System.err.println("Cart flush of " + batch.size() + " carts failed, retrying one by one: "
+                        + e.getMessage());
+                for (CartSnapshot snapshot : batch) {
+                    CartState cart = dirty.get(snapshot.userId());
+                    try {
+                        if (cart != null) {
+                            writeOne(cart);
+                        }
+                    } catch (RuntimeException single) {
+                        System.err.println("Could not save cart of user " + snapshot.userId() + ": "
+                                + single.getMessage());
+                    }
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAll();
+    }
+
+    int size() {
+        synchronized (carts) {
+            return carts.size();
+        }
+    }
+
+    int dirtyCount() {
+        return dirty.size();
+    }
+
+    private void write(List<CartSnapshot> snapshots) {
+        Map<Long, Long> versions = cartPersister.save(snapshots);
+        for (CartSnapshot snapshot : snapshots) {
+            // Still dirty if it changed while being written
+            dirty.computeIfPresent(snapshot.userId(), (id, cart) -> {
+                Long version = versions.get(id);
+                if (version != null) {
+                    cart.saved(version, snapshot.revision());
+                }
+                return cart.revision() == snapshot.revision() ? null : cart;
+            });
+        }
+    }
+
+    // On a conflict the cart is rebased onto the stored copy and written again, once;
+    // it stays dirty either way until a write goes through
+    private void writeOne(CartState cart) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write(List.of(cart.snapshot()));
+                return;
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                cart.rebase(cartPersister.load(cart.userId()).snapshot());
+                if (attempt == 2) {
+                    throw new RuntimeException("Cart was changed elsewhere, please try again");
+                }
+            }
+        }
+    }
+
+    private CartState cached(Long userId) {
+        synchronized (carts) {
+            return cachedLocked(userId);
+        }
+    }
+
+    // Unsaved changes win over whatever the cache holds for the same user
+    private CartState cachedLocked(Long userId) {
+        CartState cart = dirty.get(userId);
+        if (cart == null) {
+            return carts.get(userId);
+        }
+        if (carts.get(userId) != cart) {
+            carts.put(userId, cart); // evicted before it was written
+        }
+        return cart;
+    }
+}
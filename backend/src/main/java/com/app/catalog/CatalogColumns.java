@@ -0,0 +1,346 @@
+package com.app.catalog;
+
+import com.app.dto.ProductCard;
+import com.app.model.Money;
+import com.app.model.Product;
+import com.app.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Column-oriented copy of the listing fields of every product: ids, prices and
+ * stock in primitive arrays, categories as codes into a dictionary, plus a
+ * precomputed price ordering. A listing query is a single pass over those
+ * arrays that filters, orders and slices out one page without boxing or
+ * touching the database.
+ *
+ * Readers never lock. A change that keeps a product's price and category only
+ * touches its cells, in place, and republishes the snapshot. Anything that moves
+ * rows (new, deleted, repriced or recategorised products) is queued, and the
+ * queue is merged into a new snapshot, with one sort, by the next read, so a
+ * burst of events costs one rebuild rather than one each. Stock changes from
+ * checkouts ({@link StockChangedEvent}) are always written in place.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogColumns {
+
+    private final ProductRepository productRepository;
+
+    private volatile Snapshot snapshot;
+    // Changes that move rows, by product id; a null value is a deletion. Guarded by this.
+    private final Map<Long, Product> queued = new TreeMap<>();
+    private volatile boolean stale;
+
+    static final class Snapshot {
+        final int size;
+        final long[] ids; // ascending
+        final long[] prices; // paise
+        final int[] stock;
+        final int[] categories; // index into dictionary, -1 when unset
+        final String[] titles;
+        final String[] imageUrls;
+        final String[] dictionary;
+        final Map<String, Integer> codes;
+        final int[] byPrice; // rows in (price, id) order
+        // Rows are fixed; the cells below may be rewritten in place by the event listeners
+
+        private Snapshot(Builder b) {
+            this.size = b.size;
+            this.ids = Arrays.copyOf(b.ids, b.size);
+            this.prices = Arrays.copyOf(b.prices, b.size);
+            this.stock = Arrays.copyOf(b.stock, b.size);
+            this.categories = Arrays.copyOf(b.categories, b.size);
+            this.titles = Arrays.copyOf(b.titles, b.size);
+            this.imageUrls = Arrays.copyOf(b.imageUrls, b.size);
+            this.dictionary = b.dictionary.toArray(new String[0]);
+            this.codes = Map.copyOf(b.codes);
+            this.byPrice = sortByPrice(prices, size);
+        }
+
+        ProductCard card(int row) {
+            int category = categories[row];
+            return new ProductCard(ids[row], titles[row], prices[row], imageUrls[row],
+                    category >= 0 ? dictionary[category] : null, stock[row]);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Builder builder = new Builder(null);
+        productRepository.forEachProduct(500, builder::add);
+        queued.clear();
+        stale = false;
+        snapshot = builder.build();
+        System.out.println("Catalog columns built: " + snapshot.size + " products, "
+                + snapshot.dictionary.length + " categories.");
+    }
+
+    // Runs before the other listeners so the page cache, which reloads from here,
+    // never repopulates from the snapshot the event has just outdated.
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.RELOADED || snapshot == null) {
+            rebuild();
+            return;
+        }
+
+        Product product = event.product();
+        if (event.type() == ProductChangedEvent.Type.UPDATED && !queued.containsKey(event.productId())) {
+            Snapshot current = snapshot;
+            int row = Arrays.binarySearch(current.ids, event.productId());
+            String category = product.getCategory();
+            boolean sameCategory = row >= 0 && (category == null ? current.categories[row] < 0
+                    : Objects.equals(current.codes.get(category), current.categories[row]));
+            if (sameCategory && current.prices[row] == product.getPricePaise()) {
+                current.titles[row] = product.getTitle();
+                current.imageUrls[row] = product.getImageUrl();
+                current.stock[row] = product.getStock() != null ? product.getStock() : 0;
+                snapshot = current; // volatile write: publishes the cells to readers
+                return;
+            }
+        }
+        queued.put(event.productId(), event.type() == ProductChangedEvent.Type.DELETED ? null : product);
+        stale = true;
+    }
+
+    // Stock never moves a row: write the cells and republish, no copy and no sort
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        if (snapshot == null) {
+            return; // the first read builds from the table
+        }
+        applyQueued(); // queued products carry the stock they had when queued
+        Snapshot current = snapshot;
+        event.stock().forEach((id, units) -> {
+            int row = Arrays.binarySearch(current.ids, id);
+            if (row >= 0) {
+                current.stock[row] = units;
+            }
+        });
+        snapshot = current;
+    }
+
+    // Merges the queued changes into a new snapshot
+    private synchronized void applyQueued() {
+        if (!stale) {
+            return;
+        }
+        Snapshot current = snapshot;
+        Builder builder = new Builder(current);
+        Iterator<Map.Entry<Long, Product>> changes = queued.entrySet().iterator();
+        Map.Entry<Long, Product> change = changes.hasNext() ? changes.next() : null;
+        for (int row = 0; row < current.size; row++) {
+            long id = current.ids[row];
+            while (change != null && change.getKey() < id) {
+                if (change.getValue() != null) {
+                    builder.add(change.getValue());
+                }
+                change = changes.hasNext() ? changes.next() : null;
+            }
+            if (change != null && change.getKey() == id) {
+                if (change.getValue() != null) {
+                    builder.add(change.getValue());
+                }
+                change = changes.hasNext() ? changes.next() : null;
+            } else {
+                builder.copy(current, row);
+            }
+        }
+        while (change != null) {
+            if (change.getValue() != null) {
+                builder.add(change.getValue());
+            }
+            change = changes.hasNext() ? changes.next() : null;
+        }
+        queued.clear();
+        stale = false;
+        snapshot = builder.build();
+    }
+
+    /** One page of the listing described by {@code query}, with its exact total. */
+    public Page<ProductCard> query(CatalogQuery query, int page, int size) {
+        Snapshot s = snapshot();
+        PageRequest pageable = PageRequest.of(page, size);
+
+        int category = -1;
+        if (query.category() != null) {
+            Integer code = s.codes.get(query.category());
+            if (code == null) {
+                return new PageImpl<>(List.of(), pageable, 0);
+            }
+            category = code;
+        }
+        long min = query.minPrice() != null ? Money.toPaise(query.minPrice().doubleValue()) : Long.MIN_VALUE;
+        long max = query.maxPrice() != null ? Money.toPaise(query.maxPrice().doubleValue()) : Long.MAX_VALUE;
+        boolean inStock = query.inStock();
+        CatalogQuery.Sort sort = query.sort();
+
+        long offset = pageable.getOffset();
+        List<ProductCard> content = new ArrayList<>(Math.min(size, s.size));
+        long total = 0;
+        int n = s.size;
+        for (int k = 0; k < n; k++) {
+            int row = switch (sort) {
+                case ID -> k;
+                case PRICE_ASC -> s.byPrice[k];
+                case PRICE_DESC -> s.byPrice[n - 1 - k];
+            };
+            if (category >= 0 && s.categories[row] != category) {
+                continue;
+            }
+            if (inStock && s.stock[row] <= 0) {
+                continue;
+            }
+            if (s.prices[row] < min || s.prices[row] > max) {
+                continue;
+            }
+            if (total >= offset && content.size() < size) {
+                content.add(s.card(row));
+            }
+            total++;
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /** Cards for several products read from one snapshot; ids not in the catalog are left out. */
+    public Map<Long, ProductCard> cards(Collection<Long> ids) {
+        Snapshot s = snapshot();
+        Map<Long, ProductCard> cards = new HashMap<>();
+        for (Long id : ids) {
+            int row = Arrays.binarySearch(s.ids, id);
+            if (row >= 0) {
+                cards.put(id, s.card(row));
+            }
+        }
+        return cards;
+    }
+
+    private Snapshot snapshot() {
+        if (snapshot == null) {
+            // Requests can arrive before ApplicationReadyEvent
+            synchronized (this) {
+                if (snapshot == null) {
+                    rebuild();
+                }
+            }
+        }
+        if (stale) {
+            applyQueued();
+        }
+        return snapshot;
+    }
+
+    /** Appends rows in id order; seeded with a previous snapshot's dictionary so its codes stay valid. */
+    private static final class Builder {
+        long[] ids;
+        long[] prices;
+        int[] stock;
+        int[] categories;
+        String[] titles;
+        String[] imageUrls;
+        int size;
+        final List<String> dictionary;
+        final Map<String, Integer> codes;
+
+        Builder(Snapshot seed) {
+            int capacity = seed != null ? seed.size + 1 : 1024;
+            ids = new long[capacity];
+            prices = new long[capacity];
+            stock = new int[capacity];
+            categories = new int[capacity];
+            titles = new String[capacity];
+            imageUrls = new String[capacity];
+            dictionary = seed != null ? new ArrayList<>(Arrays.asList(seed.dictionary)) : new ArrayList<>();
+            codes = seed != null ? new HashMap<>(seed.codes) : new HashMap<>();
+        }
+
+        void add(Product product) {
+            String category = product.getCategory();
+            int code = category == null ? -1 : codes.computeIfAbsent(category, c -> {
+                dictionary.add(c);
+                return dictionary.size() - 1;
+            });
+            append(product.getId(), product.getPricePaise(),
+                    product.getStock() != null ? product.getStock() : 0, code,
+                    product.getTitle(), product.getImageUrl());
+        }
+
+        void copy(Snapshot from, int row) {
+            append(from.ids[row], from.prices[row], from.stock[row], from.categories[row],
+                    from.titles[row], from.imageUrls[row]);
+        }
+
+        private void append(long id, long price, int units, int category, String title, String imageUrl) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                stock = Arrays.copyOf(stock, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                imageUrls = Arrays.copyOf(imageUrls, capacity);
+            }
+            ids[size] = id;
+            prices[size] = price;
+            stock[size] = units;
+            categories[size] = category;
+            titles[size] = title;
+            imageUrls[size] = imageUrl;
+            size++;
+        }
+
+        Snapshot build() {
+            return new Snapshot(this);
+        }
+    }
+
+    // Bottom-up merge sort of row numbers; avoids boxing them for a Comparator
+    static int[] sortByPrice(long[] prices, int n) {
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = i;
+        }
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo;
+                int j = mid;
+                int k = lo;
+                while (i < mid && j < hi) {
+                    // Rows start in id order and the merge is stable, so equal prices stay in id order
+                    buffer[k++] = prices[rows[j]] < prices[rows[i]] ? rows[j++] : rows[i++];
+                }
+                while (i < mid) {
+                    buffer[k++] = rows[i++];
+                }
+                while (j < hi) {
+                    buffer[k++] = rows[j++];
+                }
+                System.arraycopy(buffer, lo, rows, lo, hi - lo);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,189 @@
+package com.app.catalog;
+
+import com.app.dto.FacetSummary;
+import com.app.model.Money;
+import com.app.model.Product;
+import com.app.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-category counts, price-range buckets and in-stock counts, kept in memory
+ * so the storefront filters never need a GROUP BY. Built from the product
+ * table at startup and adjusted by +/-1 on each {@link ProductChangedEvent}
+ * and on each {@link StockChangedEvent} that takes a product in or out of stock.
+ *
+ * Readers get an immutable {@link FacetSummary} that is assembled once per
+ * existing scope and reused until the next change.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogFacets {
+
+    private static final String ALL = "All";
+    private static final long[] BUCKET_BOUNDS = { 1_000_000, 2_500_000, 5_000_000, 10_000_000 }; // paise
+
+    private final ProductRepository productRepository;
+
+    // What each product currently contributes, so an update can take it back out
+    private record Contribution(String category, int bucket, boolean inStock) {
+    }
+
+    private static final class Counts {
+        long total;
+        long inStock;
+        final long[] buckets = new long[BUCKET_BOUNDS.length + 1];
+
+        void apply(Contribution c, int delta) {
+            total += delta;
+            if (c.inStock()) {
+                inStock += delta;
+            }
+            if (c.bucket() >= 0) {
+                buckets[c.bucket()] += delta;
+            }
+        }
+    }
+
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private final Counts overall = new Counts();
+    private final Map<String, Counts> byCategory = new TreeMap<>();
+    private final Map<String, FacetSummary> summaries = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            contributions.clear();
+            byCategory.clear();
+            overall.total = 0;
+            overall.inStock = 0;
+            Arrays.fill(overall.buckets, 0);
+            productRepository.forEachProduct(500, this::add);
+            summaries.clear();
+        }
+        System.out.println("Catalog facets built: " + overall.total + " products in "
+                + byCategory.size() + " categories.");
+    }
+
+    @EventListener
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.RELOADED) {
+            rebuild();
+            return;
+        }
+        remove(event.productId());
+        if (event.product() != null) {
+            add(event.product());
+        }
+        summaries.clear();
+    }
+
+    // Only a product going in or out of stock moves a count
+    @EventListener
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        boolean changed = false;
+        for (Map.Entry<Long, Integer> entry : event.stock().entrySet()) {
+            Contribution c = contributions.get(entry.getKey());
+            boolean inStock = entry.getValue() > 0;
+            if (c == null || c.inStock() == inStock) {
+                continue;
+            }
+            int delta = inStock ? 1 : -1;
+            overall.inStock += delta;
+            byCategory.get(c.category()).inStock += delta;
+            contributions.put(entry.getKey(), new Contribution(c.category(), c.bucket(), inStock));
+            changed = true;
+        }
+        if (changed) {
+            summaries.clear();
+        }
+    }
+
+    /** Facets over the whole catalog, or over one category when {@code category} is set. */
+    public FacetSummary summary(String category) {
+        String key = category == null || category.isBlank() ? ALL : category;
+        FacetSummary summary = summaries.get(key);
+        return summary != null ? summary : build(key);
+    }
+
+    /** Exact product count, for listings that show a total without a COUNT query. */
+    public synchronized long count(String category) {
+        if (category == null || ALL.equals(category)) {
+            return overall.total;
+        }
+        Counts counts = byCategory.get(category);
+        return counts != null ? counts.total : 0;
+    }
+
+    int cachedSummaries() {
+        return summaries.size();
+    }
+
+    // Under the same lock as updates, so a summary is never cached after the change that outdates it
+    private synchronized FacetSummary build(String key) {
+        Counts scope = ALL.equals(key) ? overall : byCategory.get(key);
+        boolean known = scope != null;
+        if (!known) {
+            scope = new Counts();
+        }
+
+        List<FacetSummary.CategoryCount> categories = new ArrayList<>(byCategory.size());
+        byCategory.forEach((name, counts) -> categories.add(
+                new FacetSummary.CategoryCount(name, counts.total, counts.inStock)));
+
+        List<FacetSummary.PriceBucket> buckets = new ArrayList<>(scope.buckets.length);
+        for (int i = 0; i < scope.buckets.length; i++) {
+            Double min = i == 0 ? 0.0 : Money.toRupees(BUCKET_BOUNDS[i - 1]);
+            Double max = i < BUCKET_BOUNDS.length ? Money.toRupees(BUCKET_BOUNDS[i]) : null;
+            buckets.add(new FacetSummary.PriceBucket(min, max, scope.buckets[i]));
+        }
+        FacetSummary summary = new FacetSummary(scope.total, scope.inStock, List.copyOf(categories),
+                List.copyOf(buckets));
+        // The category comes from the query string; only cache the ones that exist
+        if (known) {
+            summaries.put(key, summary);
+        }
+        return summary;
+    }
+
+    private void add(Product product) {
+        Contribution c = new Contribution(
+                product.getCategory() != null ? product.getCategory() : "Uncategorized",
+                bucketOf(product.getPricePaise()),
+                product.getStock() != null && product.getStock() > 0);
+        contributions.put(product.getId(), c);
+        overall.apply(c, 1);
+        byCategory.computeIfAbsent(c.category(), k -> new Counts()).apply(c, 1);
+    }
+
+    private void remove(Long productId) {
+        Contribution c = productId != null ? contributions.remove(productId) : null;
+        if (c == null) {
+            return;
+        }
+        overall.apply(c, -1);
+        Counts counts = byCategory.get(c.category());
+        counts.apply(c, -1);
+        if (counts.total == 0) {
+            byCategory.remove(c.category());
+        }
+    }
+
+    private static int bucketOf(long price) {
+        int i = 0;
+        while (i < BUCKET_BOUNDS.length && price >= BUCKET_BOUNDS[i]) {
+            i++;
+        }
+        return i;
+    }
+}
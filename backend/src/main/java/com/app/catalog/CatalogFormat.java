@@ -0,0 +1,18 @@
+package com.app.catalog;
+
+/** File formats accepted by the bulk import and produced by the export. */
+public enum CatalogFormat {
+    CSV, NDJSON;
+
+    /** An explicit {@code format} parameter wins; otherwise the media type decides, NDJSON by default. */
+    public static CatalogFormat resolve(String format, String mediaType) {
+        if (format != null && !format.isBlank()) {
+            try {
+                return valueOf(format.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unsupported format: " + format);
+            }
+        }
+        return mediaType != null && mediaType.contains("csv") ? CSV : NDJSON;
+    }
+}
@@ -0,0 +1,55 @@
+package com.app.catalog;
+
+import com.app.cache.ProductPageCache;
+
+import java.util.Locale;
+
+/**
+ * Filters and ordering for the paged catalog listing, answered by
+ * {@link CatalogColumns}. A null category means every category.
+ */
+public record CatalogQuery(String category, Double minPrice, Double maxPrice, boolean inStock, Sort sort) {
+
+    public enum Sort {
+        ID, PRICE_ASC, PRICE_DESC;
+
+        public static Sort from(String value) {
+            if (value == null || value.isBlank()) {
+                return ID;
+            }
+            return switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "id" -> ID;
+                case "price", "price_asc" -> PRICE_ASC;
+                case "price_desc" -> PRICE_DESC;
+                default -> throw new RuntimeException("Unsupported sort: " + value);
+            };
+        }
+    }
+
+    public static CatalogQuery of(String category, Double minPrice, Double maxPrice, boolean inStock, String sort) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new RuntimeException("minPrice must not be greater than maxPrice");
+        }
+        String normalized = ProductPageCache.normalize(category);
+        return new CatalogQuery(ProductPageCache.ALL.equals(normalized) ? null : normalized,
+                minPrice, maxPrice, inStock, Sort.from(sort));
+    }
+
+    public static CatalogQuery category(String category) {
+        return of(category, null, null, false, null);
+    }
+
+    /** True when anything beyond the category is set, i.e. the page depends on prices or stock. */
+    public boolean isFiltered() {
+        return minPrice != null || maxPrice != null || inStock || sort != Sort.ID;
+    }
+
+    /** Canonical form of the filters beyond the category, for cache keys; empty when unfiltered. */
+    public String filterKey() {
+        if (!isFiltered()) {
+            return "";
+        }
+        return (minPrice != null ? minPrice : "") + ".." + (maxPrice != null ? maxPrice : "")
+                + (inStock ? ":stock:" : ":any:") + sort;
+    }
+}
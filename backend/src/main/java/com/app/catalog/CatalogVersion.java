@@ -0,0 +1,41 @@
+package com.app.catalog;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version stamp for everything served under /api/products. It changes on every
+ * product mutation, so a client holding the current ETag can be answered with
+ * 304 without reading the catalog. It is seeded from the startup clock so a
+ * restart never hands out an ETag an earlier run already used for other content.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private volatile long lastModified = truncateToSeconds(System.currentTimeMillis());
+
+    /**
+     * Called by ProductService after the change event has been handled, so the
+     * caches are already up to date when a request observes the new version.
+     */
+    public void bump() {
+        version.incrementAndGet();
+        lastModified = truncateToSeconds(System.currentTimeMillis());
+    }
+
+    /** Strong ETag; compressed bytes are a different representation, so they get their own tag. */
+    public String etag(boolean gzip) {
+        return "\"v" + version.get() + (gzip ? "-gz\"" : "\"");
+    }
+
+    public long lastModified() {
+        return lastModified;
+    }
+
+    // HTTP dates have one-second precision
+    private static long truncateToSeconds(long millis) {
+        return millis / 1000 * 1000;
+    }
+}
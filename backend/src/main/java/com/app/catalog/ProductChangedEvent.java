@@ -0,0 +1,42 @@
+package com.app.catalog;
+
+import com.app.model.Product;
+
+/**
+ * Published by ProductService after a product mutation has been saved.
+ * In-memory read models (caches, indexes) listen for it instead of being
+ * called directly, so every write path invalidates them the same way.
+ *
+ * @param type             what happened
+ * @param productId        affected product id (null for RELOADED)
+ * @param previousCategory category before the change (null for CREATED)
+ * @param product          saved state (null for DELETED and RELOADED)
+ */
+public record ProductChangedEvent(Type type, Long productId, String previousCategory, Product product) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED,
+        /** Many rows changed at once (bulk import); listeners rebuild from the table. */
+        RELOADED
+    }
+
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(Type.CREATED, product.getId(), null, product);
+    }
+
+    public static ProductChangedEvent updated(String previousCategory, Product product) {
+        return new ProductChangedEvent(Type.UPDATED, product.getId(), previousCategory, product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId, String previousCategory) {
+        return new ProductChangedEvent(Type.DELETED, productId, previousCategory, null);
+    }
+
+    public static ProductChangedEvent reloaded() {
+        return new ProductChangedEvent(Type.RELOADED, null, null, null);
+    }
+
+    public String currentCategory() {
+        return product != null ? product.getCategory() : null;
+    }
+}
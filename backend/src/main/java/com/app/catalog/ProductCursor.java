@@ -0,0 +1,61 @@
+package com.app.catalog;
+
+import com.app.model.Money;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-ordered product listing: the sort key of the last row
+ * a client has seen. Handed out as an opaque token so clients cannot rely on
+ * its layout.
+ */
+public record ProductCursor(Sort sort, Long pricePaise, long id) {
+
+    public enum Sort {
+        ID, PRICE;
+
+        public static Sort from(String value) {
+            if (value == null || value.isBlank()) {
+                return ID;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unsupported sort: " + value);
+            }
+        }
+    }
+
+    /** Cursor before the first row. */
+    public static ProductCursor start(Sort sort) {
+        return new ProductCursor(sort, sort == Sort.PRICE ? Long.MIN_VALUE : null, 0);
+    }
+
+    public String encode() {
+        String raw = sort == Sort.PRICE ? "m:" + pricePaise + ":" + id : "i:" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token, Sort sort) {
+        if (token == null || token.isBlank()) {
+            return start(sort);
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (sort == Sort.PRICE && parts.length == 3 && parts[0].equals("m")) {
+                return new ProductCursor(sort, Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            }
+            // Tokens handed out before prices were kept in paise
+            if (sort == Sort.PRICE && parts.length == 3 && parts[0].equals("p")) {
+                return new ProductCursor(sort, Money.toPaise(Double.parseDouble(parts[1])), Long.parseLong(parts[2]));
+            }
+            if (sort == Sort.ID && parts.length == 2 && parts[0].equals("i")) {
+                return new ProductCursor(sort, null, Long.parseLong(parts[1]));
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through
+        }
+        throw new RuntimeException("Invalid cursor");
+    }
+}
@@ -0,0 +1,13 @@
+package com.app.catalog;
+
+import java.util.Map;
+
+/**
+ * Published by ProductService, at most once per interval, for products whose
+ * stock was moved by checkouts. Nothing else about them changed, so listeners
+ * patch the stock they hold in place instead of treating it as an update.
+ *
+ * @param stock current stock by product id
+ */
+public record StockChangedEvent(Map<Long, Integer> stock) {
+}
@@ -0,0 +1,45 @@
+package com.app.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Concurrent adds used to be able to insert the same product into a cart
+ * twice. Such rows are merged into one (quantities summed) so the unique key
+ * on (cart_id, product_id) can be created; schema update skips it while
+ * duplicates exist, so it is created here in that case.
+ */
+@Component
+@RequiredArgsConstructor
+public class CartItemDeduplicator implements CommandLineRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        List<Map<String, Object>> duplicates = jdbcTemplate.queryForList(
+                "SELECT cart_id, product_id, MIN(id) AS keep_id, SUM(quantity) AS total FROM cart_items"
+                        + " GROUP BY cart_id, product_id HAVING COUNT(*) > 1");
+        if (duplicates.isEmpty()) {
+            return;
+        }
+        for (Map<String, Object> row : duplicates) {
+            Object keepId = row.get("keep_id");
+            jdbcTemplate.update("UPDATE cart_items SET quantity = ? WHERE id = ?", row.get("total"), keepId);
+            jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id = ? AND product_id = ? AND id <> ?",
+                    row.get("cart_id"), row.get("product_id"), keepId);
+        }
+        System.out.println("Merged " + duplicates.size() + " duplicate cart lines.");
+        try {
+            jdbcTemplate.execute("CREATE UNIQUE INDEX uk_cart_items_cart_product ON cart_items (cart_id, product_id)");
+        } catch (DataAccessException e) {
+            System.err.println("Could not create uk_cart_items_cart_product: " + e.getMessage());
+        }
+    }
+}
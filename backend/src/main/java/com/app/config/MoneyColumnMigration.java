@@ -0,0 +1,110 @@
+package com.app.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Money used to be stored as DOUBLE rupees and is now BIGINT paise. Schema
+ * update adds the new columns (0 on existing rows); this copies each old
+ * column across, rounded to the paisa, in one transaction per column that also
+ * records the move in money_migration, so it runs once per database and a later
+ * price of 0 is never overwritten.
+ *
+ * The old columns are left in place (nullable, no longer written) so a release
+ * can still be rolled back to them; a later release drops them.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MoneyColumnMigration implements CommandLineRunner {
+
+    private record Move(String table, String from, String to) {
+    }
+
+    private static final List<Move> MOVES = List.of(
+            new Move("product", "price", "price_paise"),
+            new Move("cart_items", "price", "price_paise"),
+            new Move("cart", "total_price", "total_paise"),
+            new Move("order_items", "price", "price_paise"),
+            new Move("orders", "total_amount", "total_amount_paise"));
+
+    // Indexes on product.price, replaced by ones on price_paise
+    private static final List<String> OLD_PRODUCT_INDEXES = List.of(
+            "idx_product_price_id", "idx_product_category_price_id");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MoneyColumnMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(String... args) {
+        // DDL commits implicitly on MySQL, so it stays out of the copy transactions
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS money_migration ("
+                + "table_name VARCHAR(64) NOT NULL, column_name VARCHAR(64) NOT NULL, "
+                + "PRIMARY KEY (table_name, column_name))");
+        for (Move move : MOVES) {
+            if (!columnExists(move.table(), move.from()) || moved(move)) {
+                continue;
+            }
+            if (move.table().equals("product")) {
+                for (String index : OLD_PRODUCT_INDEXES) {
+                    try {
+                        jdbcTemplate.execute("DROP INDEX " + index + " ON product");
+                    } catch (DataAccessException e) {
+                        // already gone
+                    }
+                }
+            }
+            // DECIMAL first: DOUBLE * 100 can land just below the half-paisa and round the wrong way
+            Integer rows = transactionTemplate.execute(status -> {
+                int updated = jdbcTemplate.update("UPDATE " + move.table() + " SET " + move.to()
+                        + " = ROUND(CAST(" + move.from() + " AS DECIMAL(19,4)) * 100) WHERE " + move.from()
+                        + " IS NOT NULL");
+                jdbcTemplate.update("INSERT INTO money_migration (table_name, column_name) VALUES (?, ?)",
+                        move.table(), move.from());
+                return updated;
+            });
+            System.out.println("Moved " + rows + " amounts from " + move.table() + "." + move.from()
+                    + " to " + move.to() + ".");
+        }
+    }
+
+    private boolean moved(Move move) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM money_migration WHERE table_name = ? AND column_name = ?",
+                Integer.class, move.table(), move.from());
+        return count != null && count > 0;
+    }
+
+    private boolean columnExists(String table, String column) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData meta = connection.getMetaData();
+            // Identifier case differs between databases (MySQL keeps it, H2 upper-cases)
+            for (String t : List.of(table, table.toUpperCase())) {
+                for (String c : List.of(column, column.toUpperCase())) {
+                    try (ResultSet rs = meta.getColumns(connection.getCatalog(), null, t, c)) {
+                        if (rs.next()) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
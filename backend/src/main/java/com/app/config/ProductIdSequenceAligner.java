@@ -0,0 +1,34 @@
+package com.app.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Product ids used to come from AUTO_INCREMENT and now come from the pooled
+ * product_seq table. Each allocation reads next_val and hands out the block of
+ * ids just below it, so before anything is inserted next_val is moved one block
+ * past the highest existing id.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ProductIdSequenceAligner implements CommandLineRunner {
+
+    private static final int ALLOCATION_SIZE = 50; // must match @SequenceGenerator on Product
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM product", Long.class);
+        long floor = (maxId != null ? maxId : 0) + ALLOCATION_SIZE + 1;
+        int updated = jdbcTemplate.update("UPDATE product_seq SET next_val = ? WHERE next_val < ?", floor, floor);
+        if (updated > 0) {
+            System.out.println("product_seq moved to " + floor + " (highest product id " + maxId + ").");
+        }
+    }
+}
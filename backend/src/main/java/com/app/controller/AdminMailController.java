@@ -0,0 +1,22 @@
+package com.app.controller;
+
+import com.app.mail.MailDispatcher;
+import com.app.mail.MailStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/mail")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AdminMailController {
+
+    private final MailDispatcher mailDispatcher;
+
+    /** Queue depth by priority, send counts and latencies since startup. */
+    @GetMapping("/stats")
+    public ResponseEntity<MailStats> stats() {
+        return ResponseEntity.ok(mailDispatcher.stats());
+    }
+}
@@ -0,0 +1,118 @@
+package com.app.controller;
+
+import com.app.catalog.CatalogFormat;
+import com.app.dto.ImportReport;
+import com.app.inventory.FlashSaleInventory;
+import com.app.service.ProductExportService;
+import com.app.service.ProductImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Catalog maintenance endpoints. Everything under /api/admin requires the ADMIN role.
+ */
+@RestController
+@RequestMapping("/api/admin/products")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AdminProductController {
+
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final FlashSaleInventory flashSaleInventory;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Bulk import from the raw request body (text/csv or application/x-ndjson).
+     * The response is NDJSON written while the upload is processed: an "error"
+     * line per rejected row, a "progress" line per committed batch, and a
+     * final "summary" line.
+     */
+    @PostMapping("/import")
+    public void importProducts(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) Integer batchSize,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        CatalogFormat importFormat = CatalogFormat.resolve(format, request.getContentType());
+
+        response.setContentType("application/x-ndjson");
+        OutputStream out = response.getOutputStream();
+        ImportReport report = productImportService.importProducts(request.getInputStream(), importFormat, batchSize,
+                new ProductImportService.Listener() {
+                    @Override
+                    public void onRowError(long row, String message) {
+                        writeLine(out, Map.of("type", "error", "row", row, "message", String.valueOf(message)));
+                    }
+
+                    @Override
+                    public void onProgress(ImportReport progress) {
+                        writeLine(out, Map.of("type", "progress", "report", progress));
+                    }
+                });
+        writeLine(out, Map.of("type", "summary", "report", report));
+    }
+
+    /**
+     * Full catalog as NDJSON (default) or CSV, optionally gzipped, for partner
+     * feeds and backups. Written synchronously so a long export is not cut off
+     * by the async request timeout.
+     */
+    @GetMapping("/export")
+    public void exportProducts(
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        CatalogFormat exportFormat = CatalogFormat.resolve(format, null);
+        String filename = "products." + (exportFormat == CatalogFormat.CSV ? "csv" : "ndjson") + (gzip ? ".gz" : "");
+
+        response.setContentType(gzip ? "application/gzip"
+                : exportFormat == CatalogFormat.CSV ? "text/csv;charset=UTF-8" : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+
+        if (gzip) {
+            try (GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream(), 64 * 1024)) {
+                productExportService.export(out, exportFormat);
+            }
+        } else {
+            productExportService.export(response.getOutputStream(), exportFormat);
+        }
+    }
+
+    /** Puts a product on flash sale: its stock moves into memory until the sale ends. */
+    @PostMapping("/{id}/flash-sale")
+    public Map<String, Object> startFlashSale(@PathVariable Long id) {
+        return Map.of("productId", id, "available", flashSaleInventory.enable(id));
+    }
+
+    @DeleteMapping("/{id}/flash-sale")
+    public Map<String, Object> endFlashSale(@PathVariable Long id) {
+        flashSaleInventory.disable(id);
+        return Map.of("productId", id, "onSale", false);
+    }
+
+    /** Products currently on flash sale and their remaining units. */
+    @GetMapping("/flash-sales")
+    public Map<Long, Long> flashSales() {
+        return flashSaleInventory.available();
+    }
+
+    private void writeLine(OutputStream out, Map<String, Object> line) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(line));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Client disconnected during import", e);
+        }
+    }
+}
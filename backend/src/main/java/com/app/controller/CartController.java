@@ -1,6 +1,8 @@
 package com.app.controller;
 
-import com.app.model.Cart;
+import com.app.dto.CartDelta;
+import com.app.dto.CartOperation;
+import com.app.dto.CartView;
 import com.app.model.User;
 import com.app.service.CartService;
 import com.app.repository.UserRepository;
@@ -10,6 +12,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -20,15 +23,24 @@ public class CartController {
     private final CartService cartService;
     private final UserRepository userRepository;
 
+    /**
+     * The whole cart, or with {@code sinceRevision} only what changed after that
+     * revision (see {@link CartDelta}).
+     */
     @GetMapping
-    public ResponseEntity<Cart> getCart(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getCart(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) Long sinceRevision) {
         System.out.println("GET /api/cart - User: " + (userDetails != null ? userDetails.getUsername() : "null"));
         User user = getUser(userDetails);
+        if (sinceRevision != null) {
+            return ResponseEntity.ok(cartService.getCartChanges(user, sinceRevision));
+        }
         return ResponseEntity.ok(cartService.getCart(user));
     }
 
     @PostMapping("/add")
-    public ResponseEntity<Cart> addToCart(
+    public ResponseEntity<CartDelta> addToCart(
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestBody Map<String, Object> request) {
         System.out.println("POST /api/cart/add - User: " + (userDetails != null ? userDetails.getUsername() : "null")
@@ -39,8 +51,20 @@ public class CartController {
         return ResponseEntity.ok(cartService.addToCart(user, productId, quantity));
     }
 
+    /**
+     * Several changes in one request, e.g. "buy again" or adding a bundle.
+     * Body: [{"op":"increment","productId":1,"quantity":2}, {"op":"remove","productId":7}, ...]
+     */
+    @PatchMapping
+    public ResponseEntity<CartDelta> updateCart(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestBody List<CartOperation> operations) {
+        User user = getUser(userDetails);
+        return ResponseEntity.ok(cartService.updateCart(user, operations));
+    }
+
     @DeleteMapping("/remove/{productId}")
-    public ResponseEntity<Cart> removeFromCart(
+    public ResponseEntity<CartDelta> removeFromCart(
             @AuthenticationPrincipal UserDetails userDetails,
             @PathVariable Long productId) {
         User user = getUser(userDetails);
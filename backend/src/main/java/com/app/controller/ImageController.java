@@ -0,0 +1,236 @@
+package com.app.controller;
+
+import com.app.cache.ImageHotCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Serves uploaded images. Content-addressed names ({@code <sha256>.<ext>} and
+ * their variants) never change, so they are cached by clients for a year and may
+ * be kept in {@link ImageHotCache}; a browser that accepts WebP gets the WebP
+ * copy of a variant when one exists. Single byte ranges are honoured. Large
+ * files go out through Tomcat's sendfile when the connector supports it, and
+ * through {@link FileChannel#transferTo} otherwise.
+ */
+@RestController
+@CrossOrigin(origins = "*")
+public class ImageController {
+
+    private static final Pattern HASHED = Pattern.compile("[0-9a-f]{64}(-[a-z]+)?\\.[a-z]+");
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp",
+            "bmp", "image/bmp");
+
+    private static final String IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable()
+            .getHeaderValue();
+    private static final String REVALIDATE = CacheControl.maxAge(Duration.ofHours(1)).cachePublic()
+            .getHeaderValue();
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Below this, a plain write is cheaper than handing the file to the poller
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private final Path uploadPath;
+    private final ImageHotCache hotCache;
+
+    public ImageController(@Value("${file.upload-dir:uploads}") String uploadDir, ImageHotCache hotCache) {
+        this.uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.hotCache = hotCache;
+    }
+
+    @GetMapping("/uploads/{name:.+}")
+    public void serveImage(@PathVariable String name, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        // Legacy names are "<uuid>_<original name>" and may hold spaces or brackets, so
+        // rather than whitelisting characters, require the name to resolve to a file
+        // directly inside the upload dir; a leading dot keeps requests off temp files
+        Path requested = uploadPath.resolve(name).normalize();
+        if (name.startsWith(".") || !requested.startsWith(uploadPath) || !uploadPath.equals(requested.getParent())) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        boolean immutable = HASHED.matcher(name).matches();
+        String extension = extensionOf(name);
+        boolean negotiable = immutable && (extension.equals("jpg") || extension.equals("png"));
+
+        String served = name;
+        byte[] cached = null;
+        if (negotiable && accepts(request, "image/webp")) {
+            String webp = name.substring(0, name.length() - extension.length()) + "webp";
+            cached = hotCache.get(webp);
+            if (cached != null || Files.isRegularFile(uploadPath.resolve(webp))) {
+                served = webp;
+            }
+        }
+        if (cached == null && immutable) {
+            cached = hotCache.get(served);
+        }
+
+        Path file = uploadPath.resolve(served);
+        long length;
+        long lastModified = -1;
+        if (cached != null) {
+            length = cached.length;
+        } else {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            if (!attributes.isRegularFile()) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            length = attributes.size();
+            lastModified = attributes.lastModifiedTime().toMillis();
+            if (immutable && hotCache.fits(length) && hotCache.shouldAdmit(served)) {
+                cached = Files.readAllBytes(file);
+                hotCache.put(served, cached);
+                length = cached.length;
+            }
+        }
+
+        if (negotiable) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE : REVALIDATE);
+        // The name is the content hash, so it is a strong validator by itself
+        String etag = immutable ? "\"" + served + "\"" : null;
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (immutable ? webRequest.checkNotModified(etag) : webRequest.checkNotModified(lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+
+        response.setContentType(CONTENT_TYPES.getOrDefault(extensionOf(served), "application/octet-stream"));
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (cached != null) {
+            response.getOutputStream().write(cached, (int) start, (int) count);
+        } else if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file straight from the page cache to the socket after we return
+            request.setAttribute(SENDFILE_FILE, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+        } else {
+            transfer(file, start, count, response.getOutputStream());
+        }
+    }
+
+    /**
+     * Parses a single "bytes=" range. Returns null when the header should be
+     * ignored (malformed, or several ranges, which we answer with the whole file)
+     * and {@link #UNSATISFIABLE} when it lies outside the file.
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new long[] {Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(spec.substring(0, dash));
+            long end = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            return new long[] {start, Math.min(end, length - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void transfer(Path file, long start, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break; // file shrank under us; the client sees a short body
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static boolean accepts(HttpServletRequest request, String mediaType) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(mediaType);
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase();
+    }
+}
@@ -1,16 +1,21 @@
 package com.app.controller;
 
+import com.app.dto.CursorPage;
+import com.app.dto.OrderDetail;
+import com.app.dto.OrderSummary;
 import com.app.model.Order;
 import com.app.model.User;
+import com.app.order.OrderEventStream;
 import com.app.repository.UserRepository;
 import com.app.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,6 +26,7 @@ public class OrderController {
 
     private final OrderService orderService;
     private final UserRepository userRepository;
+    private final OrderEventStream orderEventStream;
 
     @PostMapping("/create")
     public ResponseEntity<Order> createOrder(
@@ -33,9 +39,30 @@ public class OrderController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Order>> getMyOrders(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<CursorPage<OrderSummary>> getMyOrders(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
         User user = getUser(userDetails);
-        return ResponseEntity.ok(orderService.getUserOrders(user));
+        return ResponseEntity.ok(orderService.getOrderHistory(user, cursor, Math.max(1, Math.min(size, 50))));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<OrderDetail> getOrder(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable Long id) {
+        return ResponseEntity.ok(orderService.getOrder(getUser(userDetails), id));
+    }
+
+    /**
+     * Server-sent events for the caller's orders: "status" when one changes,
+     * "reset" when a resume via Last-Event-ID cannot be served.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrders(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return orderEventStream.subscribe(getUser(userDetails).getId(), lastEventId);
     }
 
     private User getUser(UserDetails userDetails) {
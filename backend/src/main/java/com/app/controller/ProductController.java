@@ -1,20 +1,30 @@
 package com.app.controller;
 
+import com.app.cache.ProductPageCache;
+import com.app.catalog.CatalogFacets;
+import com.app.catalog.CatalogQuery;
+import com.app.catalog.CatalogVersion;
+import com.app.dto.CursorPage;
+import com.app.dto.FacetSummary;
+import com.app.dto.ProductCard;
+import com.app.dto.ProductDto;
 import com.app.model.Product;
-import com.app.repository.ProductRepository;
+import com.app.search.ProductSuggester;
+import com.app.search.SearchHit;
+import com.app.search.Suggestion;
+import com.app.service.FileStorageService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
-import java.util.UUID;
-
-import org.springframework.data.domain.Page;
 
 @RestController
 @RequestMapping("/api/products")
@@ -22,25 +32,94 @@ import org.springframework.data.domain.Page;
 @CrossOrigin(origins = "*")
 public class ProductController {
 
-    private final ProductRepository productRepository;
     private final com.app.service.ProductService productService;
-    private static final String UPLOAD_DIR = "uploads/";
+    private final FileStorageService fileStorageService;
+    private final CatalogVersion catalogVersion;
+    private final CatalogFacets catalogFacets;
+    private final ProductSuggester productSuggester;
 
     @GetMapping
-    public ResponseEntity<Page<Product>> getAllProducts(
+    public ResponseEntity<byte[]> getAllProducts(
             @RequestParam(required = false) String category,
             @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) String sort,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        CatalogQuery query = CatalogQuery.of(category, minPrice, maxPrice, inStock, sort);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = catalogVersion.etag(gzip);
+        if (request.checkNotModified(etag, catalogVersion.lastModified())) {
+            return null;
+        }
+
+        ProductPageCache.Entry entry = productService.getProductPage(query, Math.max(page, 0),
+                Math.max(1, Math.min(size, 100)));
+        ResponseEntity.BodyBuilder response = catalogResponse(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.getGzip());
+        }
+        return response.body(entry.getJson());
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<ProductCard>> scrollProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "12") int size) {
-        return ResponseEntity.ok(productService.getAllProducts(category, page, size));
+        return ResponseEntity.ok(productService.scrollProducts(category, sort, cursor,
+                Math.max(1, Math.min(size, 100))));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<FacetSummary> getFacets(@RequestParam(required = false) String category) {
+        return ResponseEntity.ok(catalogFacets.summary(category));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<SearchHit>> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(productService.search(query, Math.min(limit, 100)));
+    }
+
+    /** Typeahead for the search box; answered from memory, cheap enough to call per keystroke. */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic())
+                .body(productSuggester.suggest(query, Math.min(limit, 20)));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProduct(@PathVariable Long id) {
-        return productRepository.findById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<Product> getProduct(@PathVariable Long id, WebRequest request) {
+        String etag = catalogVersion.etag(false);
+        if (request.checkNotModified(etag, catalogVersion.lastModified())) {
+            return null;
+        }
+
+        return productService.findProductForDisplay(id)
+                .map(product -> catalogResponse(etag).body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Browsers and the edge cache may store catalog responses but must revalidate
+    // them; revalidation is answered from the version stamp alone.
+    private ResponseEntity.BodyBuilder catalogResponse(String etag) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(catalogVersion.lastModified())
+                .cacheControl(CacheControl.noCache().cachePublic());
+    }
+
     // Admin only - separate Controller usually, but keeping here for simplicity,
     // secured by SecurityConfig
     @PostMapping
@@ -57,16 +136,8 @@ public class ProductController {
             imageUrl = saveImage(image);
         }
 
-        Product product = Product.builder()
-                .title(title)
-                .description(description)
-                .price(price)
-                .category(category)
-                .stock(stock)
-                .imageUrl(imageUrl)
-                .build();
-
-        return ResponseEntity.ok(productRepository.save(product));
+        ProductDto productDto = toDto(title, description, price, category, stock);
+        return ResponseEntity.ok(productService.addProduct(productDto, imageUrl));
     }
 
     @PutMapping("/{id}")
@@ -79,38 +150,32 @@ public class ProductController {
             @RequestParam("stock") Integer stock,
             @RequestParam(value = "image", required = false) MultipartFile image) throws IOException {
 
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        product.setTitle(title);
-        product.setDescription(description);
-        product.setPrice(price);
-        product.setCategory(category);
-        product.setStock(stock);
-
+        String imageUrl = null;
         if (image != null && !image.isEmpty()) {
-            product.setImageUrl(saveImage(image));
+            imageUrl = saveImage(image);
         }
 
-        return ResponseEntity.ok(productRepository.save(product));
+        ProductDto productDto = toDto(title, description, price, category, stock);
+        return ResponseEntity.ok(productService.updateProduct(id, productDto, imageUrl));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteProduct(@PathVariable Long id) {
-        productRepository.deleteById(id);
+        productService.deleteProduct(id);
         return ResponseEntity.ok("Product deleted");
     }
 
-    private String saveImage(MultipartFile file) throws IOException {
-        Path uploadPath = Paths.get(UPLOAD_DIR);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-
-        String filename = UUID.randomUUID() + "_" + file.getOriginalFilename();
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath);
+    private ProductDto toDto(String title, String description, Double price, String category, Integer stock) {
+        ProductDto productDto = new ProductDto();
+        productDto.setTitle(title);
+        productDto.setDescription(description);
+        productDto.setPrice(price);
+        productDto.setCategory(category);
+        productDto.setStock(stock);
+        return productDto;
+    }
 
-        return "/uploads/" + filename; // Return relative path
+    private String saveImage(MultipartFile file) {
+        return "/uploads/" + fileStorageService.storeFile(file); // Return relative path
     }
 }
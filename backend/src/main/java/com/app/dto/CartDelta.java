@@ -0,0 +1,21 @@
+package com.app.dto;
+
+import com.app.model.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Answer to a cart change or a catch-up request: only the lines that changed
+ * after {@code sinceRevision}, the ids of lines that were removed, and the new
+ * totals. When {@code full} is true the client's revision was too old to
+ * diff against and {@code items} is the whole cart, replacing what it has.
+ */
+public record CartDelta(long sinceRevision, long revision, boolean full, List<CartView.Item> items,
+        List<Long> removed, long totalPaise, int itemCount) {
+
+    @JsonProperty("totalPrice")
+    public double totalPrice() {
+        return Money.toRupees(totalPaise);
+    }
+}
@@ -0,0 +1,30 @@
+package com.app.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Locale;
+
+/**
+ * One change in a PATCH /api/cart batch. {@code SET} makes the line hold
+ * exactly {@code quantity} units (0 removes it), {@code INCREMENT} adds
+ * {@code quantity} (negative takes units away), {@code REMOVE} drops the line.
+ */
+public record CartOperation(Type op, Long productId, Integer quantity) {
+
+    public enum Type {
+        SET, INCREMENT, REMOVE;
+
+        @JsonCreator
+        public static Type from(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public static CartOperation increment(Long productId, int quantity) {
+        return new CartOperation(Type.INCREMENT, productId, quantity);
+    }
+
+    public static CartOperation remove(Long productId) {
+        return new CartOperation(Type.REMOVE, productId, null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.app.dto;
+
+import com.app.model.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Cart as the client sees it. Items keep the shape the cart page already
+ * reads ({@code items[].product}, {@code quantity}); {@code id} is the product
+ * id, since a cart holds each product once.
+ */
+public record CartView(List<Item> items, long totalPaise, long revision) {
+
+    @JsonProperty("totalPrice")
+    public double totalPrice() {
+        return Money.toRupees(totalPaise);
+    }
+
+    public record Item(Long id, ProductCard product, int quantity, long pricePaise) {
+
+        @JsonProperty("price")
+        public double price() {
+            return Money.toRupees(pricePaise);
+        }
+    }
+}
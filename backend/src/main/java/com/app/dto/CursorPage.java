@@ -0,0 +1,13 @@
+package com.app.dto;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated listing. {@code approximateTotal} is whatever
+ * is cheap to know: for the catalog it comes from the in-memory facets rather
+ * than a COUNT query, for order history from the index on the user's orders,
+ * counted on the first page only. It is -1 on pages where it was not worked out;
+ * clients keep the first page's figure.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext, long approximateTotal) {
+}
@@ -0,0 +1,17 @@
+package com.app.dto;
+
+import java.util.List;
+
+public record FacetSummary(
+        long total,
+        long inStock,
+        List<CategoryCount> categories,
+        List<PriceBucket> priceBuckets) {
+
+    public record CategoryCount(String category, long count, long inStock) {
+    }
+
+    /** {@code max} is exclusive and null for the open-ended top bucket. */
+    public record PriceBucket(Double min, Double max, long count) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.app.dto;
+
+import lombok.Getter;
+
+/** Running totals of a bulk import; streamed to the client after every batch. */
+@Getter
+public class ImportReport {
+
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private long elapsedMillis;
+
+    public void rowRead() {
+        rowsRead++;
+    }
+
+    public void imported(int count) {
+        imported += count;
+    }
+
+    public void failed() {
+        failed++;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
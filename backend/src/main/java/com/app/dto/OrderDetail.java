@@ -0,0 +1,37 @@
+package com.app.dto;
+
+import com.app.model.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A single order with its lines. Items keep the shape the orders page reads
+ * ({@code orderItems[].product}, {@code quantity}, {@code price}); the product
+ * is null when it has since been removed from the catalog.
+ */
+public record OrderDetail(
+        Long id,
+        LocalDateTime orderDate,
+        LocalDateTime statusUpdatedAt,
+        String status,
+        String paymentId,
+        String paymentStatus,
+        String shippingAddress,
+        long totalAmountPaise,
+        List<Item> orderItems) {
+
+    @JsonProperty("totalAmount")
+    public double totalAmount() {
+        return Money.toRupees(totalAmountPaise);
+    }
+
+    public record Item(Long id, ProductCard product, int quantity, long pricePaise) {
+
+        @JsonProperty("price")
+        public double price() {
+            return Money.toRupees(pricePaise);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.app.dto;
+
+import java.time.LocalDateTime;
+
+/** Payload of a "status" event on /api/orders/stream. */
+public record OrderStatusUpdate(Long id, String status, LocalDateTime statusUpdatedAt) {
+}
@@ -0,0 +1,25 @@
+package com.app.dto;
+
+import com.app.model.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of a user's order history, loaded with a JPQL constructor
+ * expression so listing orders never touches their items, products or user.
+ * The lines come from GET /api/orders/{id}.
+ */
+public record OrderSummary(
+        Long id,
+        LocalDateTime orderDate,
+        String status,
+        long totalAmountPaise,
+        String paymentId,
+        int itemCount) {
+
+    @JsonProperty("totalAmount")
+    public double totalAmount() {
+        return Money.toRupees(totalAmountPaise);
+    }
+}
@@ -0,0 +1,28 @@
+package com.app.dto;
+
+import com.app.model.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Read model for catalog listings: just what a product card renders. Loaded
+ * with a JPQL constructor expression, so listings never materialize managed
+ * Product entities or their descriptions. The full product comes from
+ * GET /api/products/{id}.
+ */
+public record ProductCard(
+        Long id,
+        String title,
+        long pricePaise,
+        String imageUrl,
+        String category,
+        Integer stock) {
+
+    @JsonProperty("price")
+    public double price() {
+        return Money.toRupees(pricePaise);
+    }
+
+    public ProductCard withImageUrl(String imageUrl) {
+        return new ProductCard(id, title, pricePaise, imageUrl, category, stock);
+    }
+}
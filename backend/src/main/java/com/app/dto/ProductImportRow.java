@@ -0,0 +1,11 @@
+package com.app.dto;
+
+/** One product as it appears in a bulk import file (a CSV record or an NDJSON line). */
+public record ProductImportRow(
+        String title,
+        String description,
+        Double price,
+        String category,
+        Integer stock,
+        String imageUrl) {
+}
@@ -0,0 +1,5 @@
+package com.app.dto;
+
+/** Units of one product sold across all orders. */
+public record ProductSales(Long productId, Long units) {
+}
@@ -0,0 +1,18 @@
+package com.app.exception;
+
+import java.util.List;
+
+/** Checkout rejected because some cart lines could not be reserved; names only those lines. */
+public class OutOfStockException extends RuntimeException {
+
+    private final List<Long> productIds;
+
+    public OutOfStockException(String message, List<Long> productIds) {
+        super(message);
+        this.productIds = productIds;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
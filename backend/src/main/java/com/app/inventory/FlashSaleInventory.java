@@ -0,0 +1,261 @@
+package com.app.inventory;
+
+import com.app.service.ProductService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in in-memory stock for flash sales. While a product is on sale its stock
+ * is an {@link AtomicLong} taken with a compare-and-set, so reservations never
+ * wait on a database row. Every reservation is journalled before it is
+ * acknowledged (fsyncs are shared between concurrent reservations), and the
+ * net change is written behind to {@code product.stock} on a fixed interval.
+ *
+ * After a crash, movements in the journal that never reached the table are
+ * applied at startup and the sales resume. A crash between a flush commit and
+ * its journal record replays that flush again: stock ends up too low rather
+ * than oversold.
+ *
+ * Edit a product's stock before putting it on sale; admin edits made during the
+ * sale are not seen by the counter.
+ */
+@Component
+public class FlashSaleInventory {
+
+    enum Outcome {
+        RESERVED, REJECTED, NOT_ON_SALE
+    }
+
+    // Marks a counter that has been closed; reservations then go to the database
+    private static final long CLOSED = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductService productService;
+    private final Path journalPath;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private InventoryJournal journal;
+
+    public FlashSaleInventory(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ProductService productService,
+            @Value("${app.flash-sale.journal:data/flash-sale.journal}") String journalPath) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productService = productService;
+        this.journalPath = Paths.get(journalPath);
+    }
+
+    private static final class Counter {
+        final long initial;
+        final AtomicLong available;
+        long flushed; // units already written to the table; flusher only
+
+        Counter(long initial) {
+            this.initial = initial;
+            this.available = new AtomicLong(initial);
+        }
+
+        long unflushed(long availableNow) {
+            return initial - availableNow - flushed;
+        }
+    }
+
+    @PostConstruct
+    public void recover() throws IOException {
+        Map<Long, Long> unflushed = new HashMap<>();
+        Map<Long, Boolean> active = new LinkedHashMap<>();
+        for (String record : InventoryJournal.readAll(journalPath)) {
+            String[] parts = record.split(" ");
+            if (parts.length < 2) {
+                continue; // torn last line
+            }
+            long id;
+            long amount;
+            try {
+                id = Long.parseLong(parts[1]);
+                amount = parts.length > 2 ? Long.parseLong(parts[2]) : 0;
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            switch (parts[0]) {
+                case "E" -> active.put(id, true);
+                case "D" -> active.remove(id);
+                case "R" -> unflushed.merge(id, amount, Long::sum);
+                case "U", "F" -> unflushed.merge(id, -amount, Long::sum);
+                default -> {
+                }
+            }
+        }
+
+        unflushed.forEach((id, delta) -> {
+            if (delta != 0) {
+                jdbcTemplate.update("UPDATE product SET stock = stock - ? WHERE id = ?", delta, id);
+                System.out.println("Flash sale recovery: applied " + delta + " unflushed units to product " + id);
+            }
+        });
+
+        journal = new InventoryJournal(journalPath);
+        journal.rewrite(List.of());
+        for (Long id : active.keySet()) {
+            enable(id);
+        }
+    }
+
+    /** Moves a product's stock into memory; reservations for it stop touching the table. */
+    public synchronized long enable(Long productId) {
+        Counter existing = counters.get(productId);
+        if (existing != null) {
+            return existing.available.get();
+        }
+        List<Long> stock = jdbcTemplate.queryForList("SELECT stock FROM product WHERE id = ?", Long.class, productId);
+        if (stock.isEmpty()) {
+            throw new RuntimeException("Product not found");
+        }
+        long initial = stock.get(0) != null ? Math.max(0, stock.get(0)) : 0;
+        journal.awaitDurable(journal.append("E " + productId + " " + initial));
+        counters.put(productId, new Counter(initial));
+        System.out.println("Flash sale started for product " + productId + " with " + initial + " units.");
+        return initial;
+    }
+
+    /** Writes the remaining movements through and hands the product back to the table. */
+    public synchronized void disable(Long productId) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return;
+        }
+        long last = counter.available.getAndSet(CLOSED);
+        counters.remove(productId);
+        long delta = counter.unflushed(last);
+        if (delta != 0) {
+            jdbcTemplate.update("UPDATE product SET stock = stock - ? WHERE id = ?", delta, productId);
+            journal.append("F " + productId + " " + delta);
+        }
+        journal.awaitDurable(journal.append("D " + productId));
+        if (counters.isEmpty()) {
+            try {
+                journal.rewrite(List.of());
+            } catch (IOException e) {
+                System.err.println("Could not compact inventory journal: " + e.getMessage());
+            }
+        }
+        System.out.println("Flash sale ended for product " + productId + ".");
+    }
+
+    public Map<Long, Long> available() {
+        Map<Long, Long> result = new LinkedHashMap<>();
+        counters.forEach((id, counter) -> result.put(id, Math.max(0, counter.available.get())));
+        return result;
+    }
+
+    /** Cheap pre-check for add-to-cart; false when the product is not on sale. */
+    public boolean isSoldOut(Long productId, int quantity) {
+        Counter counter = counters.get(productId);
+        return counter != null && counter.available.get() >= 0 && counter.available.get() < quantity;
+    }
+
+    /** Not durable until {@link #sync()} returns. */
+    Outcome tryReserve(Long productId, int quantity) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return Outcome.NOT_ON_SALE;
+        }
+        while (true) {
+            long current = counter.available.get();
+            if (current == CLOSED) {
+                return Outcome.NOT_ON_SALE;
+            }
+            if (current < quantity) {
+                return Outcome.REJECTED;
+            }
+            if (counter.available.compareAndSet(current, current - quantity)) {
+                journal.append("R " + productId + " " + quantity);
+                return Outcome.RESERVED;
+            }
+        }
+    }
+
+    /** Returns units to the counter; false when the product is not on sale (any more). */
+    boolean release(Long productId, int quantity) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return false;
+        }
+        while (true) {
+            long current = counter.available.get();
+            if (current == CLOSED) {
+                return false;
+            }
+            if (counter.available.compareAndSet(current, current + quantity)) {
+                journal.append("U " + productId + " " + quantity);
+                return true;
+            }
+        }
+    }
+
+    /** Blocks until every reservation made so far is on disk. */
+    void sync() {
+        journal.awaitDurable(journal.lastAppended());
+    }
+
+    @Scheduled(fixedDelayString = "${app.flash-sale.flush-ms:500}")
+    public synchronized void flush() {
+        if (counters.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>();
+        List<Long> flushed = new ArrayList<>();
+        Map<Counter, Long> deltas = new HashMap<>();
+        counters.forEach((id, counter) -> {
+            long available = counter.available.get();
+            long delta = counter.unflushed(available);
+            if (delta != 0) {
+                args.add(new Object[] {delta, id});
+                deltas.put(counter, delta);
+                flushed.add(id);
+            }
+        });
+        if (args.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate("UPDATE product SET stock = stock - ? WHERE id = ?", args));
+        } catch (RuntimeException e) {
+            System.err.println("Flash sale flush failed, will retry: " + e.getMessage());
+            return;
+        }
+        for (Object[] arg : args) {
+            journal.append("F " + arg[1] + " " + arg[0]);
+        }
+        deltas.forEach((counter, delta) -> counter.flushed += delta);
+        productService.stockChanged(flushed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.app.inventory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Append-only text log of flash-sale stock movements, one record per line.
+ * Appends are buffered; a background thread writes and fsyncs whatever has
+ * accumulated, so many reservations share one fsync (group commit).
+ * {@link #awaitDurable} blocks until a given append is on disk.
+ */
+final class InventoryJournal implements AutoCloseable {
+
+    private final Path path;
+    private final Object lock = new Object();
+    private final Thread syncer;
+
+    private FileChannel channel;
+    private StringBuilder pending = new StringBuilder();
+    private long appended;
+    private long durable;
+    private IOException failure;
+    private boolean closed;
+
+    InventoryJournal(Path path) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = open(path);
+        this.syncer = new Thread(this::syncLoop, "inventory-journal");
+        this.syncer.setDaemon(true);
+        this.syncer.start();
+    }
+
+    static List<String> readAll(Path path) throws IOException {
+        return Files.exists(path) ? Files.readAllLines(path, StandardCharsets.UTF_8) : List.of();
+    }
+
+    /** Queues a record and returns its sequence number for {@link #awaitDurable}. */
+    long append(String record) {
+        synchronized (lock) {
+            pending.append(record).append('\n');
+            lock.notifyAll();
+            return ++appended;
+        }
+    }
+
+    long lastAppended() {
+        synchronized (lock) {
+            return appended;
+        }
+    }
+
+    void awaitDurable(long sequence) {
+        synchronized (lock) {
+            while (durable < sequence) {
+                if (failure != null) {
+                    throw new RuntimeException("Inventory journal is not writable", failure);
+                }
+                if (closed) {
+                    throw new RuntimeException("Inventory journal is closed");
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted waiting for the inventory journal", e);
+                }
+            }
+        }
+    }
+
+    /** Replaces the whole journal with {@code records}; callers must stop appending first. */
+    void rewrite(List<String> records) throws IOException {
+        synchronized (lock) {
+            awaitDurable(appended);
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.write(temp, records, StandardCharsets.UTF_8);
+            try (FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                tempChannel.force(true);
+            }
+            channel.close();
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            channel = open(path);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            syncer.join(5000);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Could not close inventory journal: " + e.getMessage());
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            String batch;
+            long upTo;
+            FileChannel target;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return; // closed and drained
+                }
+                batch = pending.toString();
+                pending = new StringBuilder();
+                upTo = appended;
+                target = channel;
+            }
+            try {
+                ByteBuffer bytes = ByteBuffer.wrap(batch.getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    target.write(bytes);
+                }
+                target.force(false);
+                synchronized (lock) {
+                    durable = upTo;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                System.err.println("Inventory journal write failed: " + e.getMessage());
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,11 @@
+package com.app.inventory;
+
+import java.util.List;
+
+/** Outcome of a reservation, per line: each line is reserved or rejected on its own. */
+public record ReservationResult(List<StockLine> reserved, List<StockLine> rejected) {
+
+    public boolean isComplete() {
+        return rejected.isEmpty();
+    }
+}
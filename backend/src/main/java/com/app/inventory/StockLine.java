@@ -0,0 +1,5 @@
+package com.app.inventory;
+
+/** A quantity of one product to take out of (or put back into) stock. */
+public record StockLine(Long productId, int quantity) {
+}
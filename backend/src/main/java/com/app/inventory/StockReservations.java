@@ -0,0 +1,215 @@
+package com.app.inventory;
+
+import com.app.service.ProductService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Takes stock out of the product table with conditional updates
+ * ({@code stock = stock - ? WHERE stock >= ?}), so stock can never go negative
+ * and a line that does not fit is rejected without affecting the others.
+ *
+ * Checkouts queue on one of a few stripes, picked by their lowest product id.
+ * Whoever holds a stripe's lock runs everything queued on it as one JDBC batch
+ * in one short transaction, so a burst on a hot product costs one round trip
+ * and one commit per batch instead of one row-lock handoff per checkout.
+ * Lines are applied in product id order, so concurrent batches lock rows in the
+ * same order and cannot deadlock.
+ *
+ * Products on flash sale are reserved from {@link FlashSaleInventory} instead.
+ *
+ * Call outside any transaction: reservations commit on their own, and a caller
+ * holding a connection while it waits for a stripe could starve the pool.
+ */
+@Component
+public class StockReservations {
+
+    private static final String RESERVE_SQL = "UPDATE product SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String RELEASE_SQL = "UPDATE product SET stock = stock + ? WHERE id = ?";
+    private static final int STRIPES = 16;
+    private static final int MAX_BATCH = 256;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductService productService;
+    private final FlashSaleInventory flashSaleInventory;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public StockReservations(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ProductService productService, FlashSaleInventory flashSaleInventory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.productService = productService;
+        this.flashSaleInventory = flashSaleInventory;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final ConcurrentLinkedQueue<Request> queue = new ConcurrentLinkedQueue<>();
+    }
+
+    private static final class Request {
+        final List<StockLine> lines;
+        final CompletableFuture<ReservationResult> result = new CompletableFuture<>();
+
+        Request(List<StockLine> lines) {
+            this.lines = lines;
+        }
+    }
+
+    private record Slot(Request request, StockLine line) {
+    }
+
+    public ReservationResult reserve(List<StockLine> lines) {
+        List<StockLine> reserved = new ArrayList<>();
+        List<StockLine> rejected = new ArrayList<>();
+        List<StockLine> remaining = new ArrayList<>();
+        for (StockLine line : merge(lines)) {
+            switch (flashSaleInventory.tryReserve(line.productId(), line.quantity())) {
+                case RESERVED -> reserved.add(line);
+                case REJECTED -> rejected.add(line);
+                case NOT_ON_SALE -> remaining.add(line);
+            }
+        }
+        if (!reserved.isEmpty()) {
+            try {
+                flashSaleInventory.sync();
+            } catch (RuntimeException e) {
+                reserved.forEach(line -> flashSaleInventory.release(line.productId(), line.quantity()));
+                throw e;
+            }
+        }
+        if (!remaining.isEmpty()) {
+            ReservationResult fromTable = reserveInTable(remaining);
+            reserved.addAll(fromTable.reserved());
+            rejected.addAll(fromTable.rejected());
+        }
+        return new ReservationResult(reserved, rejected);
+    }
+
+    private ReservationResult reserveInTable(List<StockLine> merged) {
+        Request request = new Request(merged);
+        Stripe stripe = stripes[Math.floorMod(Long.hashCode(merged.get(0).productId()), STRIPES)];
+        stripe.queue.add(request);
+        Set<Long> touched = new LinkedHashSet<>();
+        stripe.lock.lock();
+        try {
+            // Usually a previous holder has already run our request as part of its batch
+            while (!request.result.isDone()) {
+                touched.addAll(runBatch(stripe));
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        // Listings show exact stock; the products are republished in the background
+        productService.stockChanged(touched);
+        try {
+            return request.result.join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /** Puts reserved stock back, e.g. when the order it was reserved for could not be saved. */
+    public void release(List<StockLine> lines) {
+        List<StockLine> merged = merge(lines);
+        merged.removeIf(line -> flashSaleInventory.release(line.productId(), line.quantity()));
+        if (merged.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(merged.size());
+        for (StockLine line : merged) {
+            args.add(new Object[] {line.quantity(), line.productId()});
+        }
+        transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(RELEASE_SQL, args));
+        productService.stockChanged(merged.stream().map(StockLine::productId).toList());
+    }
+
+    // Returns the products it took stock from
+    private Set<Long> runBatch(Stripe stripe) {
+        List<Request> batch = new ArrayList<>();
+        Request next;
+        while (batch.size() < MAX_BATCH && (next = stripe.queue.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return Set.of();
+        }
+
+        List<Slot> slots = new ArrayList<>();
+        for (Request request : batch) {
+            for (StockLine line : request.lines) {
+                slots.add(new Slot(request, line));
+            }
+        }
+        // Stable, so requests for the same product keep their arrival order
+        slots.sort(Comparator.comparing(slot -> slot.line().productId()));
+        List<Object[]> args = new ArrayList<>(slots.size());
+        for (Slot slot : slots) {
+            StockLine line = slot.line();
+            args.add(new Object[] {line.quantity(), line.productId(), line.quantity()});
+        }
+
+        int[] counts;
+        try {
+            counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(RESERVE_SQL, args));
+        } catch (RuntimeException e) {
+            System.err.println("Stock reservation batch failed: " + e.getMessage());
+            RuntimeException failure = new RuntimeException("Could not reserve stock, please try again", e);
+            batch.forEach(request -> request.result.completeExceptionally(failure));
+            return Set.of();
+        }
+
+        Map<Request, List<StockLine>> reserved = new IdentityHashMap<>();
+        Map<Request, List<StockLine>> rejected = new IdentityHashMap<>();
+        Set<Long> touched = new LinkedHashSet<>();
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            // A driver that cannot report per-statement counts reads as rejected:
+            // that can strand stock, but never oversells
+            (counts[i] == 1 ? reserved : rejected)
+                    .computeIfAbsent(slot.request(), r -> new ArrayList<>()).add(slot.line());
+            if (counts[i] == 1) {
+                touched.add(slot.line().productId());
+            }
+        }
+        for (Request request : batch) {
+            request.result.complete(new ReservationResult(
+                    reserved.getOrDefault(request, List.of()), rejected.getOrDefault(request, List.of())));
+        }
+        return touched;
+    }
+
+    // One line per product, quantities summed, in product id order
+    private static List<StockLine> merge(List<StockLine> lines) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockLine line : lines) {
+            if (line.productId() != null && line.quantity() > 0) {
+                quantities.merge(line.productId(), line.quantity(), Integer::sum);
+            }
+        }
+        List<StockLine> merged = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> merged.add(new StockLine(id, quantity)));
+        return merged;
+    }
+}
@@ -0,0 +1,194 @@
+package com.app.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends mail off the request thread. Messages wait in a bounded queue ordered
+ * by {@link MailPriority}, then by arrival, so an OTP never waits behind a
+ * marketing run. When the queue is full, new mail displaces the least urgent
+ * queued message if that one is less urgent than it; otherwise it is refused.
+ * One worker runs per pooled SMTP connection.
+ */
+@Component
+public class MailDispatcher {
+
+    private record Job(MailMessage message, long sequence, long queuedAt, CompletableFuture<Void> done) {
+    }
+
+    private static final Comparator<Job> ORDER = Comparator
+            .comparing((Job job) -> job.message().priority())
+            .thenComparingLong(Job::sequence);
+
+    private final MailTransportPool transportPool;
+    private final String from;
+    private final int capacity;
+
+    private final PriorityQueue<Job> queue = new PriorityQueue<>(ORDER);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private long sequence;
+    private final ExecutorService workers;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+
+    public MailDispatcher(MailTransportPool transportPool,
+            @Value("${spring.mail.username:}") String from,
+            @Value("${app.mail.queue-capacity:1000}") int capacity) {
+        this.transportPool = transportPool;
+        this.from = from;
+        this.capacity = capacity;
+        // Java 17 has no virtual threads; the workers spend their time waiting on SMTP, one per connection
+        int threads = transportPool.size();
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "mail-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    /**
+     * Queues a message and returns at once. The future completes when the
+     * message has been handed to the server, or fails if sending did or the
+     * message was displaced by more urgent mail.
+     */
+    public CompletableFuture<Void> submit(MailMessage message) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Job displaced = null;
+        lock.lock();
+        try {
+            Job job = new Job(message, sequence++, System.nanoTime(), done);
+            if (queue.size() >= capacity) {
+                Job leastUrgent = queue.stream().max(ORDER).orElseThrow();
+                if (leastUrgent.message().priority().compareTo(message.priority()) <= 0) {
+                    rejected.increment();
+                    throw new RuntimeException("Mail queue is full, please try again");
+                }
+                queue.remove(leastUrgent);
+                displaced = leastUrgent;
+            }
+            queue.add(job);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (displaced != null) {
+            rejected.increment();
+            displaced.done().completeExceptionally(new RuntimeException("Dropped for more urgent mail"));
+        }
+        return done;
+    }
+
+    public MailStats stats() {
+        Map<MailPriority, Integer> byPriority = new EnumMap<>(MailPriority.class);
+        int queued;
+        lock.lock();
+        try {
+            queued = queue.size();
+            for (Job job : queue) {
+                byPriority.merge(job.message().priority(), 1, Integer::sum);
+            }
+        } finally {
+            lock.unlock();
+        }
+        long sentCount = sent.sum();
+        long attempted = sentCount + failed.sum();
+        return new MailStats(queued, byPriority, sentCount, failed.sum(), rejected.sum(),
+                attempted > 0 ? sendNanos.sum() / 1e6 / attempted : 0,
+                maxSendNanos.get() / 1e6,
+                attempted > 0 ? waitNanos.sum() / 1e6 / attempted : 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        lock.lock();
+        try {
+            if (!queue.isEmpty()) {
+                System.err.println("Shutting down with " + queue.size() + " unsent emails.");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Job job;
+            try {
+                job = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job.done().isDone()) {
+                continue; // the caller gave up waiting and cancelled it
+            }
+            long started = System.nanoTime();
+            waitNanos.add(started - job.queuedAt());
+            try {
+                transportPool.send(toMime(job.message()));
+                sent.increment();
+                job.done().complete(null);
+            } catch (InterruptedException e) {
+                job.done().completeExceptionally(e);
+                return;
+            } catch (Exception e) {
+                failed.increment();
+                System.err.println("Failed to send email to " + job.message().to() + ": " + e.getMessage());
+                job.done().completeExceptionally(e);
+            } finally {
+                long took = System.nanoTime() - started;
+                sendNanos.add(took);
+                maxSendNanos.accumulateAndGet(took, Math::max);
+            }
+        }
+    }
+
+    private Job take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                notEmpty.await();
+            }
+            return queue.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private MimeMessage toMime(MailMessage message) throws MessagingException {
+        MimeMessage mime = transportPool.createMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mime, true, "UTF-8");
+        helper.setFrom(from);
+        helper.setTo(message.to());
+        helper.setSubject(message.subject());
+        helper.setText(message.html(), true);
+        return mime;
+    }
+}
@@ -0,0 +1,4 @@
+package com.app.mail;
+
+public record MailMessage(String to, String subject, String html, MailPriority priority) {
+}
@@ -0,0 +1,8 @@
+package com.app.mail;
+
+/** Order in which queued mail is sent; earlier constants go first. */
+public enum MailPriority {
+    OTP,
+    TRANSACTIONAL,
+    MARKETING
+}
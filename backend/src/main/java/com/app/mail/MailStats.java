@@ -0,0 +1,15 @@
+package com.app.mail;
+
+import java.util.Map;
+
+/** Counters since startup, plus what is waiting right now. */
+public record MailStats(
+        int queued,
+        Map<MailPriority, Integer> queuedByPriority,
+        long sent,
+        long failed,
+        long rejected,
+        double averageSendMillis,
+        double maxSendMillis,
+        double averageWaitMillis) {
+}
@@ -0,0 +1,68 @@
+package com.app.mail;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTML template parsed once into literal text and placeholders, so
+ * rendering is a single pass of appends. {@code {{name}}} is HTML-escaped;
+ * {@code {{{name}}}} is inserted as is, for markup rendered by another template.
+ */
+public final class MailTemplate {
+
+    private record Part(String text, boolean variable, boolean raw) {
+    }
+
+    private final List<Part> parts;
+    private final int literalLength;
+
+    private MailTemplate(List<Part> parts) {
+        this.parts = parts;
+        this.literalLength = parts.stream().filter(part -> !part.variable()).mapToInt(part -> part.text().length()).sum();
+    }
+
+    public static MailTemplate compile(String source) {
+        List<Part> parts = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                break;
+            }
+            boolean raw = source.startsWith("{{{", open);
+            String close = raw ? "}}}" : "}}";
+            int end = source.indexOf(close, open);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at " + open);
+            }
+            if (open > position) {
+                parts.add(new Part(source.substring(position, open), false, false));
+            }
+            parts.add(new Part(source.substring(open + close.length(), end).trim(), true, raw));
+            position = end + close.length();
+        }
+        if (position < source.length()) {
+            parts.add(new Part(source.substring(position), false, false));
+        }
+        return new MailTemplate(List.copyOf(parts));
+    }
+
+    public String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder(literalLength + 64 * values.size());
+        for (Part part : parts) {
+            if (!part.variable()) {
+                out.append(part.text());
+                continue;
+            }
+            if (!values.containsKey(part.text())) {
+                throw new IllegalArgumentException("No value for " + part.text());
+            }
+            String value = String.valueOf(values.get(part.text()));
+            out.append(part.raw() ? value : HtmlUtils.htmlEscape(value));
+        }
+        return out.toString();
+    }
+}
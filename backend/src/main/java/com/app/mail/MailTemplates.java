@@ -0,0 +1,39 @@
+package com.app.mail;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** The templates under {@code resources/mail}, compiled at startup. */
+@Component
+public class MailTemplates {
+
+    private static final List<String> NAMES = List.of("otp", "order-confirmation", "order-confirmation-item");
+
+    private final Map<String, MailTemplate> templates = new HashMap<>();
+
+    public MailTemplates() {
+        for (String name : NAMES) {
+            try {
+                String source = new ClassPathResource("mail/" + name + ".html").getContentAsString(StandardCharsets.UTF_8);
+                templates.put(name, MailTemplate.compile(source));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Missing mail template " + name, e);
+            }
+        }
+    }
+
+    public MailTemplate get(String name) {
+        MailTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown mail template " + name);
+        }
+        return template;
+    }
+}
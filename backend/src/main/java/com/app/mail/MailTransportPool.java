@@ -0,0 +1,117 @@
+package com.app.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A fixed number of SMTP connections kept open between messages, so a send
+ * costs one MAIL/RCPT/DATA exchange instead of a TCP and TLS handshake plus
+ * login. Settings come from the Boot-configured mail sender. A connection the
+ * server has dropped is reopened, and a send that fails on a reused
+ * connection is tried once more on a fresh one.
+ *
+ * Connect, read and write each time out after {@code app.mail.timeout-ms}
+ * unless the mail properties set their own, so a stalled server fails the send
+ * instead of holding a sender thread forever.
+ */
+@Component
+public class MailTransportPool {
+
+    private final Session session;
+    private final String protocol;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final BlockingQueue<Transport> idle;
+
+    public MailTransportPool(JavaMailSenderImpl mailSender, @Value("${app.mail.connections:2}") int connections,
+            @Value("${app.mail.timeout-ms:10000}") int timeoutMs) {
+        this.session = mailSender.getSession();
+        this.protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+        // Read when each transport connects; JavaMail's own default is to wait forever
+        for (String timeout : List.of("connectiontimeout", "timeout", "writetimeout")) {
+            session.getProperties().putIfAbsent("mail." + protocol + "." + timeout, String.valueOf(timeoutMs));
+        }
+        this.host = mailSender.getHost();
+        this.port = mailSender.getPort();
+        this.username = mailSender.getUsername();
+        this.password = mailSender.getPassword();
+        this.idle = new ArrayBlockingQueue<>(connections);
+        for (int i = 0; i < connections; i++) {
+            idle.add(newTransport());
+        }
+    }
+
+    public int size() {
+        return idle.remainingCapacity() + idle.size();
+    }
+
+    public MimeMessage createMessage() {
+        return new MimeMessage(session);
+    }
+
+    /** Sends on a pooled connection, waiting for one to be free. */
+    public void send(MimeMessage message) throws MessagingException, InterruptedException {
+        Transport transport = idle.take();
+        try {
+            boolean reused = transport.isConnected();
+            try {
+                sendOn(transport, message);
+            } catch (MessagingException e) {
+                if (!reused) {
+                    throw e;
+                }
+                // The server may have timed out the idle connection
+                close(transport);
+                transport = newTransport();
+                sendOn(transport, message);
+            }
+        } catch (MessagingException | RuntimeException e) {
+            close(transport);
+            transport = newTransport();
+            throw e;
+        } finally {
+            idle.add(transport);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        idle.forEach(MailTransportPool::close);
+    }
+
+    private void sendOn(Transport transport, MimeMessage message) throws MessagingException {
+        if (!transport.isConnected()) {
+            transport.connect(host, port, username, password);
+        }
+        message.saveChanges();
+        transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    private Transport newTransport() {
+        try {
+            return session.getTransport(protocol);
+        } catch (MessagingException e) {
+            throw new IllegalStateException("No mail transport for " + protocol, e);
+        }
+    }
+
+    private static void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            // already broken
+        }
+    }
+}
@@ -29,6 +29,13 @@ public class Cart {
     @JsonManagedReference
     private List<CartItem> items = new ArrayList<>();
 
+    private long totalPaise;
+
+    // Guards against a write from another instance landing between our load and save
+    @Version
+    private long version;
+
+    // Revision of the in-memory cart this row was written from; null on rows older than the column
     @Builder.Default
-    private Double totalPrice = 0.0;
+    private Long revision = 0L;
 }
@@ -10,7 +10,8 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = @UniqueConstraint(name = "uk_cart_items_cart_product",
+        columnNames = { "cart_id", "product_id" }))
 public class CartItem {
 
     @Id
@@ -27,5 +28,5 @@ public class CartItem {
     private Product product;
 
     private Integer quantity;
-    private Double price; // Price at time of adding (optional, but good practice)
+    private long pricePaise; // unit price when the product was added
 }
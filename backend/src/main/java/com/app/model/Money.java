@@ -0,0 +1,37 @@
+package com.app.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts are stored and added up as whole paise in a {@code long}, which is
+ * exact and allocation-free; rupees only appear at the edges (JSON, forms,
+ * CSV, emails).
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /** Rupees as typed or sent by a client, rounded half-up to the paisa. */
+    public static long toPaise(double rupees) {
+        if (Double.isNaN(rupees) || Double.isInfinite(rupees)) {
+            throw new IllegalArgumentException("Not an amount: " + rupees);
+        }
+        // valueOf goes through the shortest decimal string, so 19.99 stays 19.99
+        return BigDecimal.valueOf(rupees).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static Long toPaise(Double rupees) {
+        return rupees != null ? toPaise(rupees.doubleValue()) : null;
+    }
+
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+
+    /** "1234.50" */
+    public static String format(long paise) {
+        return BigDecimal.valueOf(paise, 2).toPlainString();
+    }
+}
@@ -1,6 +1,7 @@
 package com.app.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -14,14 +15,17 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_updated_at", columnList = "status, status_updated_at"),
+        @Index(name = "idx_orders_user_id_id", columnList = "user_id, id")
+})
 public class Order {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -29,11 +33,16 @@ public class Order {
     @JsonManagedReference
     private List<OrderItem> orderItems = new ArrayList<>();
 
-    private Double totalAmount;
+    private long totalAmountPaise;
     private LocalDateTime orderDate;
     private LocalDateTime statusUpdatedAt; // Tracks when status was last changed
     private String status; // Placed, On the Way, Shipped, Delivered
     private String paymentId; // Razorpay Payment ID or COD
     private String paymentStatus; // Paid, Pending
     private String shippingAddress;
+
+    @JsonProperty("totalAmount")
+    public double getTotalAmount() {
+        return Money.toRupees(totalAmountPaise);
+    }
 }
@@ -1,6 +1,7 @@
 package com.app.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -22,10 +23,15 @@ public class OrderItem {
     @JsonBackReference
     private Order order;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
 
     private Integer quantity;
-    private Double price;
+    private long pricePaise;
+
+    @JsonProperty("price")
+    public double getPrice() {
+        return Money.toRupees(pricePaise);
+    }
 }
@@ -0,0 +1,49 @@
+package com.app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A side effect recorded in the same transaction as the change that caused it
+ * and carried out afterwards by the outbox dispatcher.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class OutboxEvent {
+
+    public enum Status {
+        PENDING,
+        DONE,
+        FAILED // gave up after the last attempt
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String type;
+
+    private Long aggregateId; // e.g. the order id
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private int attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt; // also pushed out while a dispatcher holds the event
+    private LocalDateTime processedAt;
+
+    @Column(length = 500)
+    private String lastError;
+}
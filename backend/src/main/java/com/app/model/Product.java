@@ -1,5 +1,6 @@
 package com.app.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,12 +8,20 @@ import lombok.*;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_product_category_id", columnList = "category, id"),
+        @Index(name = "idx_product_price_paise_id", columnList = "price_paise, id"),
+        @Index(name = "idx_product_category_price_paise_id", columnList = "category, price_paise, id")
+})
 public class Product {
 
+    // Pooled sequence (a table on MySQL) instead of IDENTITY so Hibernate can
+    // batch inserts; ProductIdSequenceAligner keeps it above pre-existing ids.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -20,8 +29,14 @@ public class Product {
     @Column(length = 1000)
     private String description;
 
-    private Double price;
+    private long pricePaise;
     private String category;
     private String imageUrl;
     private Integer stock;
+
+    /** Rupees, for JSON clients; the amount itself is {@link #pricePaise}. */
+    @JsonProperty("price")
+    public double getPrice() {
+        return Money.toRupees(pricePaise);
+    }
 }
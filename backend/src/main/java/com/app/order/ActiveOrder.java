@@ -0,0 +1,7 @@
+package com.app.order;
+
+import java.time.LocalDateTime;
+
+/** An order still moving through the status pipeline, as loaded to rebuild its timer. */
+public record ActiveOrder(Long id, Long userId, String status, LocalDateTime statusUpdatedAt) {
+}
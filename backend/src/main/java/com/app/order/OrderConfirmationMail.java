@@ -0,0 +1,35 @@
+package com.app.order;
+
+import com.app.model.Order;
+import com.app.model.OutboxEvent;
+import com.app.outbox.OutboxHandler;
+import com.app.repository.OrderRepository;
+import com.app.service.EmailService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/** Sends the confirmation email for an order recorded in the outbox at checkout. */
+@Component
+@RequiredArgsConstructor
+public class OrderConfirmationMail implements OutboxHandler {
+
+    public static final String TYPE = "ORDER_CONFIRMATION";
+
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        Order order = orderRepository.findWithLinesById(event.getAggregateId()).orElse(null);
+        if (order == null) {
+            System.err.println("Order #" + event.getAggregateId() + " no longer exists, skipping its confirmation.");
+            return;
+        }
+        emailService.sendOrderConfirmation(order.getUser().getEmail(), order);
+    }
+}
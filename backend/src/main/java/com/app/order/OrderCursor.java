@@ -0,0 +1,35 @@
+package com.app.order;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position in a user's order history, newest first: the next
+ * page holds the orders with a smaller id.
+ */
+public record OrderCursor(long id) {
+
+    public static OrderCursor start() {
+        return new OrderCursor(Long.MAX_VALUE);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("o:" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return start();
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length == 2 && parts[0].equals("o")) {
+                return new OrderCursor(Long.parseLong(parts[1]));
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through
+        }
+        throw new RuntimeException("Invalid cursor");
+    }
+}
@@ -0,0 +1,311 @@
+package com.app.order;
+
+import com.app.dto.OrderStatusUpdate;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pushes order status changes to each user's open /api/orders/stream
+ * connections. Connections are async requests, so an idle one holds a socket
+ * but no thread; a comment line every {@code app.orders.stream.heartbeat-ms}
+ * keeps proxies from closing them and finds the ones that are gone.
+ *
+ * Event ids are {@code <epoch>-<sequence>}, the epoch being this process's
+ * start. The last {@code app.orders.stream.history} events are kept, so a
+ * client reconnecting with Last-Event-ID gets what it missed. When that is
+ * no longer possible (too far behind, or the server restarted) it gets a
+ * "reset" event instead and should reload its orders.
+ *
+ * Each connection has its own queue, written in order by one sender thread at
+ * a time, so a replay is never overtaken by a newer event. A connection is
+ * dropped when its queue passes {@code app.orders.stream.queue} frames or a
+ * write has been blocked for {@code app.orders.stream.send-timeout-ms}; the
+ * client reconnects and resumes from its Last-Event-ID.
+ *
+ * Completing the emitter does not unblock a write to a client that stopped
+ * reading; that thread stays stuck until the container's write timeout. So the
+ * heartbeat writes such a thread off: the pool gets an extra thread until the
+ * write returns, and {@code app.orders.stream.sender-threads} stay free for
+ * the clients that are still reading.
+ */
+@Component
+public class OrderEventStream {
+
+    private record Recorded(long sequence, Long userId, OrderStatusUpdate update) {
+    }
+
+    private static final long RECONNECT_MILLIS = 3_000;
+    private static final long WRITTEN_OFF = Long.MIN_VALUE;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final long timeoutMillis;
+    private final int history;
+    private final int queueLimit;
+    private final long sendTimeoutNanos;
+
+    private final Map<Long, Set<Connection>> subscribers = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private final Deque<Recorded> recent = new ArrayDeque<>();
+    private long sequence;
+    // Highest sequence dropped from recent; a client behind it cannot resume
+    private long forgotten;
+    private final ThreadPoolExecutor sender;
+
+    public OrderEventStream(@Value("${app.orders.stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${app.orders.stream.history:10000}") int history,
+            @Value("${app.orders.stream.queue:64}") int queueLimit,
+            @Value("${app.orders.stream.send-timeout-ms:10000}") long sendTimeoutMillis,
+            @Value("${app.orders.stream.sender-threads:4}") int senderThreads) {
+        this.timeoutMillis = timeoutMillis;
+        this.history = history;
+        this.queueLimit = queueLimit;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        AtomicInteger counter = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "order-events-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /** One open stream and the frames waiting to be written to it. */
+    private final class Connection {
+
+        final Long userId;
+        final SseEmitter emitter;
+        // Builders are single use, so each connection builds its own frames
+        final Deque<Supplier<SseEmitter.SseEventBuilder>> pending = new ArrayDeque<>();
+        boolean draining;
+        boolean closed;
+        // nanoTime the write in progress started, 0 when none is, WRITTEN_OFF once the heartbeat gave up on it
+        final AtomicLong sendingSince = new AtomicLong();
+
+        Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void enqueue(Supplier<SseEmitter.SseEventBuilder> frame) {
+            boolean overflow;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                overflow = pending.size() >= queueLimit;
+                if (!overflow) {
+                    pending.addLast(frame);
+                    if (draining) {
+                        return;
+                    }
+                    draining = true;
+                }
+            }
+            if (overflow) {
+                drop(this, "too far behind");
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Supplier<SseEmitter.SseEventBuilder> frame;
+                synchronized (this) {
+                    frame = closed ? null : pending.pollFirst();
+                    if (frame == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                sendingSince.set(System.nanoTime());
+                try {
+                    emitter.send(frame.get());
+                } catch (IOException | IllegalStateException e) {
+                    drop(this, null);
+                    return;
+                } finally {
+                    if (sendingSince.getAndSet(0) == WRITTEN_OFF) {
+                        resize(-1); // this thread is back; give up the one that stood in for it
+                    }
+                }
+            }
+        }
+    }
+
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        return subscribe(userId, lastEventId, new SseEmitter(timeoutMillis));
+    }
+
+    // Takes the emitter so tests can stand in a client that stops reading
+    SseEmitter subscribe(Long userId, String lastEventId, SseEmitter emitter) {
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(() -> drop(connection, null));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> drop(connection, null));
+
+        synchronized (lock) {
+            subscribers.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(connection);
+            Long after = resumePoint(lastEventId);
+            boolean reset = lastEventId != null && !lastEventId.isBlank()
+                    && (after == null || after < forgotten || after > sequence);
+            List<Recorded> missed = new ArrayList<>();
+            if (after != null && !reset) {
+                for (Recorded event : recent) {
+                    if (event.sequence() > after && event.userId().equals(userId)) {
+                        missed.add(event);
+                    }
+                }
+            }
+            // A replay that would not fit the queue is answered with a reset instead
+            if (missed.size() >= queueLimit - 1) {
+                reset = true;
+                missed.clear();
+            }
+            String current = idOf(sequence);
+            connection.enqueue(() -> SseEmitter.event().comment("connected").reconnectTime(RECONNECT_MILLIS));
+            if (reset) {
+                connection.enqueue(() -> SseEmitter.event().id(current).name("reset").data(""));
+            }
+            for (Recorded event : missed) {
+                connection.enqueue(() -> frame(event));
+            }
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        synchronized (lock) {
+            Recorded recorded = new Recorded(++sequence, event.userId(),
+                    new OrderStatusUpdate(event.orderId(), event.status(), event.statusUpdatedAt()));
+            recent.addLast(recorded);
+            while (recent.size() > history) {
+                forgotten = recent.removeFirst().sequence();
+            }
+            Set<Connection> connections = subscribers.get(event.userId());
+            if (connections == null) {
+                return;
+            }
+            for (Connection connection : connections) {
+                connection.enqueue(() -> frame(recorded));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(connections -> {
+            for (Connection connection : connections) {
+                long since = connection.sendingSince.get();
+                if (since != 0 && since != WRITTEN_OFF && now - since > sendTimeoutNanos) {
+                    if (connection.sendingSince.compareAndSet(since, WRITTEN_OFF)) {
+                        resize(1);
+                    }
+                    drop(connection, "write blocked for over " + TimeUnit.NANOSECONDS.toMillis(now - since) + "ms");
+                } else {
+                    connection.enqueue(() -> SseEmitter.event().comment("ping"));
+                }
+            }
+        });
+    }
+
+    // Grows or shrinks the pool by one thread; max goes first when growing, core when shrinking
+    private void resize(int delta) {
+        synchronized (sender) {
+            int size = sender.getMaximumPoolSize() + delta;
+            if (delta > 0) {
+                sender.setMaximumPoolSize(size);
+                sender.setCorePoolSize(size);
+            } else {
+                sender.setCorePoolSize(size);
+                sender.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    int senderThreads() {
+        return sender.getCorePoolSize();
+    }
+
+    public int connections() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.values().forEach(connections -> connections.forEach(connection -> connection.emitter.complete()));
+    }
+
+    private SseEmitter.SseEventBuilder frame(Recorded event) {
+        return SseEmitter.event().id(idOf(event.sequence())).name("status")
+                .data(event.update(), MediaType.APPLICATION_JSON);
+    }
+
+    /** Forgets the connection; with a reason it was too slow, so it is also closed. */
+    private void drop(Connection connection, String reason) {
+        synchronized (connection) {
+            if (connection.closed) {
+                return;
+            }
+            connection.closed = true;
+            connection.pending.clear();
+        }
+        subscribers.computeIfPresent(connection.userId, (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+        if (reason != null) {
+            System.err.println("Dropping order stream of user " + connection.userId + ": " + reason);
+            connection.emitter.complete();
+        }
+    }
+
+    private String idOf(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /** The sequence a client last saw, or null when the id is not from this process. */
+    private Long resumePoint(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(epoch)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
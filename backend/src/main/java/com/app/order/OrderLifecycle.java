@@ -0,0 +1,145 @@
+package com.app.order;
+
+import com.app.model.Order;
+import com.app.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves orders through {@link #STATUS_PIPELINE}, one step every
+ * {@code app.orders.seconds-per-step}. Only orders still in flight are held,
+ * as timers on a {@link TimingWheel}; they are loaded once at startup and
+ * added as orders are placed. Each tick advances whatever is due with one
+ * UPDATE per status, guarded on the status the timer was set for, so an order
+ * changed in the meantime is left alone. Every committed change is published
+ * as an {@link OrderStatusChangedEvent}.
+ */
+@Component
+public class OrderLifecycle {
+
+    public static final List<String> STATUS_PIPELINE = List.of(
+            "Placed", "On the Way", "Shipped", "Delivered");
+
+    // Keeps the IN list of one UPDATE bounded
+    private static final int BATCH_SIZE = 500;
+    private static final int WHEEL_SLOTS = 64;
+
+    private record Due(Long orderId, Long userId, String status) {
+    }
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long stepMillis;
+    private final TimingWheel<Due> wheel;
+
+    public OrderLifecycle(OrderRepository orderRepository, TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.orders.seconds-per-step:10}") long secondsPerStep,
+            @Value("${app.orders.tick-ms:1000}") long tickMillis) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.stepMillis = secondsPerStep * 1000;
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_SLOTS, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rehydrate() {
+        List<ActiveOrder> active = orderRepository.findActive(STATUS_PIPELINE.subList(0, STATUS_PIPELINE.size() - 1));
+        for (ActiveOrder order : active) {
+            schedule(new Due(order.id(), order.userId(), order.status()), order.statusUpdatedAt());
+        }
+        System.out.println("Tracking " + active.size() + " orders in flight.");
+    }
+
+    /** Starts the clock on a newly committed order. */
+    public void track(Order order) {
+        Long userId = order.getUser().getId();
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), userId, order.getStatus(),
+                order.getStatusUpdatedAt()));
+        schedule(new Due(order.getId(), userId, order.getStatus()), order.getStatusUpdatedAt());
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.tick-ms:1000}")
+    public void tick() {
+        tick(System.currentTimeMillis());
+    }
+
+    /** Advances every order due by {@code nowMillis}; returns how many rows changed. */
+    int tick(long nowMillis) {
+        List<Due> due = wheel.advance(nowMillis);
+        if (due.isEmpty()) {
+            return 0;
+        }
+        Map<String, Map<Long, Long>> byStatus = new LinkedHashMap<>(); // status -> order id -> user id
+        for (Due order : due) {
+            byStatus.computeIfAbsent(order.status(), status -> new LinkedHashMap<>())
+                    .put(order.orderId(), order.userId());
+        }
+
+        LocalDateTime now = LocalDateTime.ofInstant(Instant.ofEpochMilli(nowMillis), ZoneId.systemDefault());
+        int advanced = 0;
+        for (Map.Entry<String, Map<Long, Long>> entry : byStatus.entrySet()) {
+            String from = entry.getKey();
+            String to = STATUS_PIPELINE.get(STATUS_PIPELINE.indexOf(from) + 1);
+            Map<Long, Long> users = entry.getValue();
+            List<Long> ids = new ArrayList<>(users.keySet());
+            List<Long> changed;
+            try {
+                changed = transactionTemplate.execute(status -> {
+                    int rows = 0;
+                    for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+                        rows += orderRepository.advanceStatus(ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())),
+                                from, to, now);
+                    }
+                    // The guard skipped some: find out which moved, so only those are announced
+                    return rows == ids.size() ? ids : orderRepository.findIdsChangedTo(ids, to, now);
+                });
+            } catch (RuntimeException e) {
+                // Try the same step again on the next tick
+                System.err.println("Failed to advance orders from " + from + ": " + e.getMessage());
+                users.forEach((id, userId) -> wheel.schedule(new Due(id, userId, from), nowMillis));
+                continue;
+            }
+            System.out.println("Advanced " + changed.size() + " orders: " + from + " → " + to);
+            advanced += changed.size();
+            for (Long id : changed) {
+                Long userId = users.get(id);
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(id, userId, to, now));
+                schedule(new Due(id, userId, to), nowMillis);
+            }
+        }
+        return advanced;
+    }
+
+    int pending() {
+        return wheel.size();
+    }
+
+    private void schedule(Due order, LocalDateTime since) {
+        long sinceMillis = since != null ? since.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+        schedule(order, sinceMillis);
+    }
+
+    private void schedule(Due order, long sinceMillis) {
+        int index = STATUS_PIPELINE.indexOf(order.status());
+        if (index < 0 || index >= STATUS_PIPELINE.size() - 1) {
+            return;
+        }
+        wheel.schedule(order, sinceMillis + stepMillis);
+    }
+}
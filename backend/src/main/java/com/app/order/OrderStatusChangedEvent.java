@@ -0,0 +1,10 @@
+package com.app.order;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published once an order's new status has been committed, including
+ * "Placed" for a new order. The order event stream listens for it.
+ */
+public record OrderStatusChangedEvent(Long orderId, Long userId, String status, LocalDateTime statusUpdatedAt) {
+}
@@ -0,0 +1,75 @@
+package com.app.order;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hashed timing wheel: timers are dropped into one of a fixed ring of slots
+ * by deadline, and each advance only looks at the slots whose ticks have
+ * passed. Scheduling is O(1) and advancing costs the timers in the visited
+ * slots, however many timers are pending overall. Deadlines further out than
+ * one turn of the wheel share a slot with nearer ones and are skipped until
+ * they are due.
+ */
+final class TimingWheel<T> {
+
+    private record Timer<T>(T item, long deadline) {
+    }
+
+    private final long tickMillis;
+    private final List<List<Timer<T>>> slots;
+    // Tick reached by the last advance; its slot is looked at again next time
+    // since timers already due can still be added to it
+    private long cursor;
+    private int size;
+
+    TimingWheel(long tickMillis, int slotCount, long startMillis) {
+        if (tickMillis <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("Tick and slot count must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.cursor = startMillis / tickMillis;
+    }
+
+    /** Adds a timer; one already past its deadline fires on the next advance. */
+    synchronized void schedule(T item, long deadlineMillis) {
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, cursor);
+        slots.get(slotOf(tick)).add(new Timer<>(item, deadlineMillis));
+        size++;
+    }
+
+    /** Removes and returns every timer due by {@code nowMillis}. */
+    synchronized List<T> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        if (target < cursor) {
+            return List.of();
+        }
+        // After a long pause one full turn visits every slot
+        long last = Math.min(target, cursor + slots.size() - 1);
+        List<T> due = new ArrayList<>();
+        for (long tick = cursor; tick <= last; tick++) {
+            slots.get(slotOf(tick)).removeIf(timer -> {
+                if (timer.deadline() > nowMillis) {
+                    return false;
+                }
+                due.add(timer.item());
+                return true;
+            });
+        }
+        cursor = target;
+        size -= due.size();
+        return due;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+}
@@ -0,0 +1,34 @@
+package com.app.outbox;
+
+import com.app.model.OutboxEvent;
+import com.app.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+public class Outbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    /**
+     * Records an event in the caller's transaction, so it exists exactly when
+     * the change it describes commits.
+     */
+    public void add(String type, Long aggregateId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox events must be added inside a transaction");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        outboxEventRepository.save(OutboxEvent.builder()
+                .type(type)
+                .aggregateId(aggregateId)
+                .status(OutboxEvent.Status.PENDING)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+    }
+}
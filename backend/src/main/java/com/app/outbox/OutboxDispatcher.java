@@ -0,0 +1,206 @@
+package com.app.outbox;
+
+import com.app.model.OutboxEvent;
+import com.app.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the side effects recorded in the outbox. Each batch is claimed in a
+ * short transaction that pushes the events' next attempt out by a lease, so
+ * another dispatcher skips them and a crash mid-batch only delays them. The
+ * handlers then run with no transaction or connection held, and the outcome
+ * of the whole batch is written back in one more transaction. Failures are
+ * retried with exponential backoff until {@link #MAX_ATTEMPTS}.
+ *
+ * Batches run on the dispatcher's own thread, never on the shared scheduler,
+ * and each handler gets at most {@code app.outbox.handler-timeout-seconds}. A
+ * batch stops before a handler could outlive the lease; the events it did not
+ * reach are released for the next run.
+ */
+@Component
+public class OutboxDispatcher {
+
+    static final int MAX_ATTEMPTS = 8;
+    private static final Duration FIRST_RETRY = Duration.ofSeconds(5);
+    private static final Duration MAX_RETRY = Duration.ofMinutes(30);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, OutboxHandler> handlers = new HashMap<>();
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration retention;
+    private final Duration handlerTimeout;
+    private final ExecutorService dispatcherThread;
+    private final ExecutorService handlerThreads;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, TransactionTemplate transactionTemplate,
+            List<OutboxHandler> handlers,
+            @Value("${app.outbox.batch-size:50}") int batchSize,
+            @Value("${app.outbox.lease-seconds:60}") long leaseSeconds,
+            @Value("${app.outbox.retention-days:7}") long retentionDays,
+            @Value("${app.outbox.handler-timeout-seconds:20}") long handlerTimeoutSeconds) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        for (OutboxHandler handler : handlers) {
+            if (this.handlers.put(handler.type(), handler) != null) {
+                throw new IllegalStateException("Two outbox handlers for " + handler.type());
+            }
+        }
+        this.batchSize = batchSize;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.retention = Duration.ofDays(retentionDays);
+        this.handlerTimeout = Duration.ofSeconds(handlerTimeoutSeconds);
+        this.dispatcherThread = Executors.newSingleThreadExecutor(threads("outbox-dispatcher"));
+        // A handler that ignores interruption keeps its thread; the next one gets a fresh one
+        this.handlerThreads = Executors.newCachedThreadPool(threads("outbox-handler"));
+    }
+
+    /** Starts a run on the dispatcher thread unless one is still going. */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:1000}")
+    public void dispatch() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        dispatcherThread.execute(() -> {
+            try {
+                // Keep going while there is a backlog
+                while (dispatchBatch() == batchSize) {
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Outbox dispatch failed: " + e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcherThread.shutdownNow();
+        handlerThreads.shutdownNow();
+    }
+
+    /** Claims and runs one batch; returns how many events it claimed. */
+    int dispatchBatch() {
+        LocalDateTime claimedAt = LocalDateTime.now();
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> due = outboxEventRepository.findDueForUpdate(claimedAt, PageRequest.of(0, batchSize));
+            for (OutboxEvent event : due) {
+                event.setNextAttemptAt(claimedAt.plus(lease));
+            }
+            return due;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> done = new ArrayList<>();
+        List<OutboxEvent> updated = new ArrayList<>();
+        LocalDateTime lastStart = claimedAt.plus(lease).minus(handlerTimeout);
+        for (OutboxEvent event : claimed) {
+            if (LocalDateTime.now().isAfter(lastStart) || Thread.currentThread().isInterrupted()) {
+                // Could still be running when another dispatcher reclaims it, or we are shutting down
+                event.setNextAttemptAt(LocalDateTime.now());
+                updated.add(event);
+                continue;
+            }
+            try {
+                OutboxHandler handler = handlers.get(event.getType());
+                if (handler == null) {
+                    throw new IllegalStateException("No handler for outbox event type " + event.getType());
+                }
+                handle(handler, event);
+                done.add(event.getId());
+            } catch (RuntimeException e) {
+                failed(event, e);
+                updated.add(event);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!done.isEmpty()) {
+                outboxEventRepository.markDone(done, LocalDateTime.now());
+            }
+            outboxEventRepository.saveAll(updated);
+        });
+        return claimed.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.purge-ms:3600000}")
+    public void purge() {
+        Integer deleted = transactionTemplate.execute(
+                status -> outboxEventRepository.deleteDoneBefore(LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            System.out.println("Purged " + deleted + " processed outbox events.");
+        }
+    }
+
+    private void handle(OutboxHandler handler, OutboxEvent event) {
+        Future<?> run = handlerThreads.submit(() -> handler.handle(event));
+        try {
+            run.get(handlerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            run.cancel(true);
+            throw new RuntimeException("Timed out after " + handlerTimeout.toSeconds() + "s");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            run.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted");
+        }
+    }
+
+    private static ThreadFactory threads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void failed(OutboxEvent event, RuntimeException e) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        String message = String.valueOf(e.getMessage());
+        event.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+        if (attempts >= MAX_ATTEMPTS) {
+            event.setStatus(OutboxEvent.Status.FAILED);
+            System.err.println("Giving up on outbox event #" + event.getId() + " (" + event.getType() + ") after "
+                    + attempts + " attempts: " + message);
+            return;
+        }
+        event.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+        System.err.println("Outbox event #" + event.getId() + " (" + event.getType() + ") failed, attempt "
+                + attempts + ": " + message);
+    }
+
+    static Duration backoff(int attempts) {
+        Duration delay = FIRST_RETRY.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_RETRY) > 0 ? MAX_RETRY : delay;
+    }
+}
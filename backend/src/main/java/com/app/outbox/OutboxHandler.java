@@ -0,0 +1,15 @@
+package com.app.outbox;
+
+import com.app.model.OutboxEvent;
+
+/**
+ * Carries out one type of outbox event. Events are delivered at least once, so
+ * a handler may see the same event again after a crash or a lost acknowledgement.
+ * Throwing schedules a retry.
+ */
+public interface OutboxHandler {
+
+    String type();
+
+    void handle(OutboxEvent event);
+}
@@ -1,10 +1,21 @@
 package com.app.repository;
 
 import com.app.model.Cart;
-import com.app.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
-    Optional<Cart> findByUser(User user);
+
+    // Cart, its lines and their products in one joined select; loading or
+    // reconciling a cart then needs no further queries.
+    @EntityGraph(attributePaths = {"items", "items.product"})
+    Optional<Cart> findByUserId(Long userId);
+
+    // Batch form for the write-behind flusher
+    @EntityGraph(attributePaths = {"items", "items.product", "user"})
+    List<Cart> findByUserIdIn(Collection<Long> userIds);
 }
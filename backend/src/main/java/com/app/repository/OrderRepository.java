@@ -1,10 +1,50 @@
 package com.app.repository;
 
+import com.app.dto.OrderSummary;
+import com.app.dto.ProductSales;
 import com.app.model.Order;
-import com.app.model.User;
+import com.app.order.ActiveOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUser(User user);
+    @Query("select new com.app.dto.OrderSummary(o.id, o.orderDate, o.status, o.totalAmountPaise, o.paymentId, "
+            + "size(o.orderItems)) from Order o where o.user.id = :userId and o.id < :id order by o.id desc")
+    Slice<OrderSummary> findSummariesBefore(@Param("userId") Long userId, @Param("id") long id, Pageable pageable);
+
+    long countByUserId(Long userId);
+
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<Order> findByIdAndUserId(Long id, Long userId);
+
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product", "user"})
+    Optional<Order> findWithLinesById(Long id);
+
+    @Query("select new com.app.dto.ProductSales(i.product.id, sum(i.quantity)) from OrderItem i "
+            + "where i.product is not null group by i.product.id")
+    List<ProductSales> sumUnitsSoldByProduct();
+
+    // Old records without statusUpdatedAt count from when they were placed
+    @Query("select new com.app.order.ActiveOrder(o.id, o.user.id, o.status, coalesce(o.statusUpdatedAt, o.orderDate)) "
+            + "from Order o where o.status in :statuses")
+    List<ActiveOrder> findActive(@Param("statuses") Collection<String> statuses);
+
+    @Modifying
+    @Query("update Order o set o.status = :to, o.statusUpdatedAt = :now where o.id in :ids and o.status = :from")
+    int advanceStatus(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to,
+            @Param("now") LocalDateTime now);
+
+    @Query("select o.id from Order o where o.id in :ids and o.status = :status and o.statusUpdatedAt = :since")
+    List<Long> findIdsChangedTo(@Param("ids") Collection<Long> ids, @Param("status") String status,
+            @Param("since") LocalDateTime since);
 }
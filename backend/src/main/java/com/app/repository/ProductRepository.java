@@ -1,11 +1,59 @@
 package com.app.repository;
 
+import com.app.dto.ProductCard;
 import com.app.model.Product;
+import java.util.Collection;
 import java.util.List;
-import org.springframework.data.domain.Page;
+import java.util.function.Consumer;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    Page<Product> findByCategory(String category, Pageable pageable);
+    String CARD = "select new com.app.dto.ProductCard(p.id, p.title, p.pricePaise, p.imageUrl, p.category, p.stock) "
+            + "from Product p ";
+
+    // Keyset pages: each one seeks past the last row seen instead of using OFFSET,
+    // and Slice fetches size + 1 rows rather than issuing a COUNT.
+    @Query(CARD + "where p.id > :id order by p.id")
+    Slice<ProductCard> findCardsAfterId(@Param("id") Long id, Pageable pageable);
+
+    @Query(CARD + "where p.category = :category and p.id > :id order by p.id")
+    Slice<ProductCard> findCardsByCategoryAfterId(@Param("category") String category, @Param("id") Long id,
+            Pageable pageable);
+
+    @Query(CARD + "where p.pricePaise > :price or (p.pricePaise = :price and p.id > :id) "
+            + "order by p.pricePaise, p.id")
+    Slice<ProductCard> findCardsAfterPrice(@Param("price") long price, @Param("id") Long id, Pageable pageable);
+
+    @Query(CARD + "where p.category = :category "
+            + "and (p.pricePaise > :price or (p.pricePaise = :price and p.id > :id)) order by p.pricePaise, p.id")
+    Slice<ProductCard> findCardsByCategoryAfterPrice(@Param("category") String category,
+            @Param("price") long price, @Param("id") Long id, Pageable pageable);
+
+    Slice<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // (id, stock) pairs, for republishing stock without loading whole products
+    @Query("select p.id, p.stock from Product p where p.id in :ids")
+    List<Object[]> findStockByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Products showing an uploaded image, which is named after its content hash
+    List<Product> findByImageUrlContaining(String hash);
+
+    // Walks the whole table in id order without holding it all in memory.
+    // Used to (re)build the in-memory read models.
+    default void forEachProduct(int batchSize, Consumer<Product> consumer) {
+        long lastId = 0;
+        Slice<Product> batch;
+        do {
+            batch = findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, batchSize));
+            for (Product product : batch) {
+                consumer.accept(product);
+                lastId = product.getId();
+            }
+        } while (batch.hasNext());
+    }
 }
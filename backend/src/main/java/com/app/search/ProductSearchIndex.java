@@ -0,0 +1,405 @@
+package com.app.search;
+
+import com.app.catalog.ProductChangedEvent;
+import com.app.catalog.StockChangedEvent;
+import com.app.model.Product;
+import com.app.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product title, category and description.
+ * Built from the product table once the application is ready, then kept in
+ * sync from {@link ProductChangedEvent}s, so queries never touch MySQL.
+ *
+ * Each query token matches its exact term, terms it is a prefix of (for
+ * search-as-you-type) and, when there is no exact term, terms one typo away.
+ * Matches are ranked with BM25, title hits counting more than description hits.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final float PREFIX_FACTOR = 0.7f;
+    private static final float FUZZY_FACTOR = 0.5f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_EXPANSIONS = 64;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    // Every term with one character removed -> the terms it came from, for typo lookups
+    private final Map<String, List<String>> deletions = new HashMap<>();
+    private final List<Doc> docs = new ArrayList<>(); // slot -> doc, null once removed
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private long totalLength;
+    private int liveDocs;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    // Only the fields a result needs; descriptions are tokenized and then dropped
+    private record Doc(Long id, String title, long pricePaise, String category, String imageUrl, Integer stock,
+            int length, String[] terms) {
+
+        SearchHit toHit(float score) {
+            return new SearchHit(id, title, pricePaise, category, imageUrl, stock, score);
+        }
+    }
+
+    /** Slots and weighted term frequencies of the docs containing one term. Unordered. */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int slot, int freq) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            slots[size] = slot;
+            freqs[size] = freq;
+            size++;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    freqs[i] = freqs[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Per-thread score accumulators, reset through the touched lists instead of reallocated. */
+    private static final class Scratch {
+        float[] total = new float[0];
+        float[] best = new float[0];
+        int[] touched = new int[0];
+        int[] tokenTouched = new int[0];
+
+        void ensure(int capacity) {
+            if (total.length < capacity) {
+                total = new float[capacity];
+                best = new float[capacity];
+                touched = new int[capacity];
+                tokenTouched = new int[capacity];
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            deletions.clear();
+            docs.clear();
+            slots.clear();
+            totalLength = 0;
+            liveDocs = 0;
+            productRepository.forEachProduct(500, this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Search index built: " + liveDocs + " products, " + terms.size() + " terms.");
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.RELOADED) {
+            rebuild();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(event.productId());
+            if (event.product() != null) {
+                add(event.product());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Stock is only carried for the hits; the postings are untouched
+    @EventListener
+    public void onStockChanged(StockChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            event.stock().forEach((id, units) -> {
+                Integer slot = slots.get(id);
+                Doc doc = slot != null ? docs.get(slot) : null;
+                if (doc != null) {
+                    docs.set(slot, new Doc(doc.id(), doc.title(), doc.pricePaise(), doc.category(),
+                            doc.imageUrl(), units, doc.length(), doc.terms()));
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        List<String> tokens = Tokenizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Scratch s = scratch.get();
+            s.ensure(docs.size());
+            float avgLength = liveDocs == 0 ? 1f : (float) totalLength / liveDocs;
+            int touchedCount = 0;
+
+            for (String token : tokens) {
+                // A doc scores a token by its best matching expansion, not the sum of all of them
+                int tokenTouchedCount = 0;
+                for (Map.Entry<String, Float> expansion : expand(token).entrySet()) {
+                    Postings postings = terms.get(expansion.getKey());
+                    float idf = (float) Math.log(1 + (liveDocs - postings.size + 0.5) / (postings.size + 0.5));
+                    float factor = expansion.getValue() * idf;
+                    for (int i = 0; i < postings.size; i++) {
+                        int slot = postings.slots[i];
+                        int tf = postings.freqs[i];
+                        float norm = K1 * (1 - B + B * docs.get(slot).length() / avgLength);
+                        float score = factor * tf * (K1 + 1) / (tf + norm);
+                        if (s.best[slot] == 0f) {
+                            s.tokenTouched[tokenTouchedCount++] = slot;
+                        }
+                        if (score > s.best[slot]) {
+                            s.best[slot] = score;
+                        }
+                    }
+                }
+                for (int i = 0; i < tokenTouchedCount; i++) {
+                    int slot = s.tokenTouched[i];
+                    if (s.total[slot] == 0f) {
+                        s.touched[touchedCount++] = slot;
+                    }
+                    s.total[slot] += s.best[slot];
+                    s.best[slot] = 0f;
+                }
+            }
+
+            PriorityQueue<SearchHit> top = new PriorityQueue<>(limit + 1, ProductSearchIndex::compareHits);
+            for (int i = 0; i < touchedCount; i++) {
+                int slot = s.touched[i];
+                SearchHit hit = docs.get(slot).toHit(s.total[slot]);
+                s.total[slot] = 0f;
+                if (top.size() < limit) {
+                    top.add(hit);
+                } else if (compareHits(hit, top.peek()) > 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(top);
+            hits.sort((a, b) -> compareHits(b, a));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return liveDocs;
+    }
+
+    // Lower score first, so a min-heap keeps the best hits; ties favour the lower id
+    private static int compareHits(SearchHit a, SearchHit b) {
+        int byScore = Float.compare(a.score(), b.score());
+        return byScore != 0 ? byScore : Long.compare(b.id(), a.id());
+    }
+
+    private Map<String, Float> expand(String token) {
+        Map<String, Float> expansions = new LinkedHashMap<>();
+        boolean exact = terms.containsKey(token);
+        if (exact) {
+            expansions.put(token, 1f);
+        }
+
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            for (String term : terms.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                expansions.put(term, PREFIX_FACTOR);
+            }
+        }
+
+        if (!exact && token.length() >= MIN_FUZZY_LENGTH) {
+            // Query is the term minus a character
+            addFuzzy(expansions, token, deletions.get(token));
+            for (String deleted : deletionsOf(token)) {
+                // Term is the query minus a character
+                if (terms.containsKey(deleted)) {
+                    addFuzzy(expansions, token, List.of(deleted));
+                }
+                // Substitution or transposition: both lose a character to the same string
+                addFuzzy(expansions, token, deletions.get(deleted));
+            }
+        }
+        return expansions;
+    }
+
+    private static void addFuzzy(Map<String, Float> expansions, String token, List<String> candidates) {
+        if (candidates == null) {
+            return;
+        }
+        for (String candidate : candidates) {
+            if (expansions.size() >= MAX_EXPANSIONS) {
+                return;
+            }
+            if (withinOneEdit(token, candidate)) {
+                expansions.putIfAbsent(candidate, FUZZY_FACTOR);
+            }
+        }
+    }
+
+    // Optimal string alignment distance <= 1 (insert, delete, substitute or swap neighbours)
+    static boolean withinOneEdit(String a, String b) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > 1) {
+            return false;
+        }
+        if (la == lb) {
+            int first = -1;
+            for (int i = 0; i < la; i++) {
+                if (a.charAt(i) != b.charAt(i)) {
+                    if (first >= 0) {
+                        return i == first + 1 && a.charAt(first) == b.charAt(i) && a.charAt(i) == b.charAt(first)
+                                && a.regionMatches(i + 1, b, i + 1, la - i - 1);
+                    }
+                    first = i;
+                }
+            }
+            return true;
+        }
+        String shorter = la < lb ? a : b;
+        String longer = la < lb ? b : a;
+        int i = 0;
+        while (i < shorter.length() && shorter.charAt(i) == longer.charAt(i)) {
+            i++;
+        }
+        return shorter.regionMatches(i, longer, i + 1, shorter.length() - i);
+    }
+
+    private static List<String> deletionsOf(String term) {
+        List<String> result = new ArrayList<>(term.length());
+        for (int i = 0; i < term.length(); i++) {
+            result.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return result;
+    }
+
+    private void add(Product product) {
+        Map<String, Integer> freqs = new HashMap<>();
+        int length = count(freqs, product.getTitle(), TITLE_WEIGHT)
+                + count(freqs, product.getCategory(), CATEGORY_WEIGHT)
+                + count(freqs, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        int slot = docs.size();
+        docs.add(new Doc(product.getId(), product.getTitle(), product.getPricePaise(), product.getCategory(),
+                product.getImageUrl(), product.getStock(), length, freqs.keySet().toArray(new String[0])));
+        slots.put(product.getId(), slot);
+        totalLength += length;
+        liveDocs++;
+
+        freqs.forEach((term, freq) -> terms.computeIfAbsent(term, this::newTerm).add(slot, freq));
+    }
+
+    private void remove(Long productId) {
+        Integer slot = productId != null ? slots.remove(productId) : null;
+        if (slot == null) {
+            return;
+        }
+        Doc doc = docs.set(slot, null);
+        totalLength -= doc.length();
+        liveDocs--;
+
+        for (String term : doc.terms()) {
+            Postings postings = terms.get(term);
+            postings.remove(slot);
+            if (postings.size == 0) {
+                terms.remove(term);
+                for (String deleted : deletionsOf(term)) {
+                    List<String> sources = deletions.get(deleted);
+                    sources.remove(term);
+                    if (sources.isEmpty()) {
+                        deletions.remove(deleted);
+                    }
+                }
+            }
+        }
+
+        // Slots are never reused; compact once dead slots dominate
+        if (docs.size() > 64 && liveDocs < docs.size() / 2) {
+            compact();
+        }
+    }
+
+    private Postings newTerm(String term) {
+        for (String deleted : deletionsOf(term)) {
+            deletions.computeIfAbsent(deleted, k -> new ArrayList<>(1)).add(term);
+        }
+        return new Postings();
+    }
+
+    private void compact() {
+        int[] remap = new int[docs.size()];
+        List<Doc> live = new ArrayList<>(liveDocs);
+        for (int slot = 0; slot < docs.size(); slot++) {
+            Doc doc = docs.get(slot);
+            if (doc != null) {
+                remap[slot] = live.size();
+                slots.put(doc.id(), live.size());
+                live.add(doc);
+            }
+        }
+        for (Postings postings : terms.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                postings.slots[i] = remap[postings.slots[i]];
+            }
+        }
+        docs.clear();
+        docs.addAll(live);
+    }
+
+    private static int count(Map<String, Integer> freqs, String text, int weight) {
+        List<String> tokens = Tokenizer.tokenize(text);
+        for (String token : tokens) {
+            freqs.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+}
@@ -0,0 +1,314 @@
+package com.app.search;
+
+import com.app.catalog.ProductChangedEvent;
+import com.app.dto.ProductSales;
+import com.app.model.Product;
+import com.app.repository.OrderRepository;
+import com.app.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typeahead over product titles and category names. Keys live in one sorted
+ * array, so the keys under a prefix are a contiguous range found by binary
+ * search; a max segment tree over their weights then yields the top N of that
+ * range without scanning it. A title is indexed from each of its first words,
+ * so "pro" finds "iPhone 15 Pro".
+ *
+ * Weights are units sold (products) and product count plus units sold
+ * (categories). Snapshots are immutable: product changes and sales are merged
+ * into a new array in one linear pass and swapped in.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSuggester {
+
+    private static final int MAX_KEYS_PER_TITLE = 6;
+    private static final Comparator<Entry> BY_KEY = Comparator.comparing(Entry::key);
+
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new Suggestion[0], new long[0]);
+
+    // What the current snapshot was derived from; guarded by this
+    private final Map<Long, Item> products = new HashMap<>();
+    private final Map<String, CategoryStats> categories = new HashMap<>();
+    private final Map<Long, Long> pendingSales = new ConcurrentHashMap<>();
+
+    private record Item(String category, long sold, Suggestion suggestion) {
+    }
+
+    private static final class CategoryStats {
+        final Suggestion suggestion;
+        long products;
+        long sold;
+
+        CategoryStats(String name) {
+            this.suggestion = new Suggestion(name, Suggestion.Type.CATEGORY, null);
+        }
+    }
+
+    private record Entry(String key, Suggestion target, long weight) {
+    }
+
+    static final class Snapshot {
+        final String[] keys; // sorted
+        final Suggestion[] targets;
+        final long[] weights;
+        final int[] tree; // tree[n + i] = i; tree[p] = heavier of its two children
+
+        Snapshot(String[] keys, Suggestion[] targets, long[] weights) {
+            this.keys = keys;
+            this.targets = targets;
+            this.weights = weights;
+            int n = keys.length;
+            this.tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int p = n - 1; p > 0; p--) {
+                tree[p] = heavier(tree[2 * p], tree[2 * p + 1]);
+            }
+        }
+
+        int lowerBound(String key) {
+            int lo = 0;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /** Index of the heaviest key in [from, to). */
+        int heaviest(int from, int to) {
+            int n = keys.length;
+            int best = -1;
+            for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    best = heavier(best, tree[l++]);
+                }
+                if ((r & 1) == 1) {
+                    best = heavier(best, tree[--r]);
+                }
+            }
+            return best;
+        }
+
+        private int heavier(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            return weights[b] > weights[a] || weights[b] == weights[a] && b < a ? b : a;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        products.clear();
+        categories.clear();
+        pendingSales.clear();
+        Map<Long, Long> sold = new HashMap<>();
+        for (ProductSales sales : orderRepository.sumUnitsSoldByProduct()) {
+            sold.put(sales.productId(), sales.units());
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        productRepository.forEachProduct(500, product -> entries.addAll(
+                put(product, sold.getOrDefault(product.getId(), 0L))));
+        categories.values().forEach(stats -> entries.add(entryOf(stats)));
+        snapshot = merge(new Snapshot(new String[0], new Suggestion[0], new long[0]), Set.of(), entries);
+        System.out.println("Suggestions built: " + snapshot.keys.length + " keys over " + products.size()
+                + " products and " + categories.size() + " categories.");
+    }
+
+    @EventListener
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.RELOADED) {
+            rebuild();
+            return;
+        }
+        Set<Suggestion> dropped = new HashSet<>();
+        Set<String> touched = new HashSet<>();
+        List<Entry> added = new ArrayList<>();
+
+        long sold = remove(event.productId(), dropped, touched);
+        if (event.product() != null) {
+            added.addAll(put(event.product(), sold));
+            touched.add(categoryOf(event.product()));
+        }
+        refreshCategories(touched, dropped, added);
+        snapshot = merge(snapshot, dropped, added);
+    }
+
+    /** Counts units towards a product's popularity; folded into the suggestions periodically. */
+    public void recordSale(Long productId, long units) {
+        if (productId != null && units > 0) {
+            pendingSales.merge(productId, units, Long::sum);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.suggest.sales-refresh-ms:30000}")
+    public synchronized void applySales() {
+        if (pendingSales.isEmpty()) {
+            return;
+        }
+        Set<Suggestion> dropped = new HashSet<>();
+        Set<String> touched = new HashSet<>();
+        List<Entry> added = new ArrayList<>();
+        for (Long productId : List.copyOf(pendingSales.keySet())) {
+            Long units = pendingSales.remove(productId);
+            Item item = products.get(productId);
+            if (units == null || item == null) {
+                continue;
+            }
+            dropped.add(item.suggestion());
+            Item updated = new Item(item.category(), item.sold() + units, item.suggestion());
+            products.put(productId, updated);
+            added.addAll(entriesOf(updated));
+            categories.get(item.category()).sold += units;
+            touched.add(item.category());
+        }
+        refreshCategories(touched, dropped, added);
+        snapshot = merge(snapshot, dropped, added);
+    }
+
+    /** Up to {@code limit} suggestions whose key starts with the query, heaviest first. */
+    public List<Suggestion> suggest(String query, int limit) {
+        String prefix = String.join(" ", Tokenizer.tokenize(query));
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Snapshot s = snapshot;
+        int from = s.lowerBound(prefix);
+        int to = s.lowerBound(prefix + Character.MAX_VALUE);
+        if (from >= to) {
+            return List.of();
+        }
+
+        // Ranges still to draw from, each with its heaviest key: take the best, split around it, repeat
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> Long.compare(s.weights[b[2]], s.weights[a[2]]));
+        ranges.add(new int[] {from, to, s.heaviest(from, to)});
+        Set<Suggestion> result = new LinkedHashSet<>();
+        while (!ranges.isEmpty() && result.size() < limit) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            result.add(s.targets[best]); // a title matched under two of its words counts once
+            if (range[0] < best) {
+                ranges.add(new int[] {range[0], best, s.heaviest(range[0], best)});
+            }
+            if (best + 1 < range[1]) {
+                ranges.add(new int[] {best + 1, range[1], s.heaviest(best + 1, range[1])});
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private List<Entry> put(Product product, long sold) {
+        String category = categoryOf(product);
+        Item item = new Item(category, sold,
+                new Suggestion(product.getTitle(), Suggestion.Type.PRODUCT, product.getId()));
+        products.put(product.getId(), item);
+        CategoryStats stats = categories.computeIfAbsent(category, CategoryStats::new);
+        stats.products++;
+        stats.sold += sold;
+        return entriesOf(item);
+    }
+
+    private long remove(Long productId, Set<Suggestion> dropped, Set<String> touched) {
+        Item item = productId != null ? products.remove(productId) : null;
+        if (item == null) {
+            return 0;
+        }
+        dropped.add(item.suggestion());
+        CategoryStats stats = categories.get(item.category());
+        stats.products--;
+        stats.sold -= item.sold();
+        touched.add(item.category());
+        return item.sold();
+    }
+
+    // Category weights change with their products, so their entries are replaced
+    private void refreshCategories(Set<String> touched, Set<Suggestion> dropped, List<Entry> added) {
+        for (String name : touched) {
+            CategoryStats stats = categories.get(name);
+            dropped.add(stats.suggestion);
+            if (stats.products <= 0) {
+                categories.remove(name);
+            } else {
+                added.add(entryOf(stats));
+            }
+        }
+    }
+
+    private static List<Entry> entriesOf(Item item) {
+        List<String> tokens = Tokenizer.tokenize(item.suggestion().text());
+        List<Entry> entries = new ArrayList<>(Math.min(tokens.size(), MAX_KEYS_PER_TITLE));
+        for (int i = 0; i < tokens.size() && i < MAX_KEYS_PER_TITLE; i++) {
+            entries.add(new Entry(String.join(" ", tokens.subList(i, tokens.size())), item.suggestion(),
+                    item.sold()));
+        }
+        return entries;
+    }
+
+    private static Entry entryOf(CategoryStats stats) {
+        String key = String.join(" ", Tokenizer.tokenize(stats.suggestion.text()));
+        return new Entry(key, stats.suggestion, stats.products + stats.sold);
+    }
+
+    private static String categoryOf(Product product) {
+        return product.getCategory() != null ? product.getCategory() : "Uncategorized";
+    }
+
+    // One pass over the old keys, skipping dropped targets and splicing in the (sorted) additions
+    private static Snapshot merge(Snapshot old, Set<Suggestion> dropped, List<Entry> added) {
+        added.removeIf(entry -> entry.key().isEmpty());
+        added.sort(BY_KEY);
+        int capacity = old.keys.length + added.size();
+        String[] keys = new String[capacity];
+        Suggestion[] targets = new Suggestion[capacity];
+        long[] weights = new long[capacity];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < old.keys.length || j < added.size()) {
+            if (i < old.keys.length && dropped.contains(old.targets[i])) {
+                i++;
+            } else if (j < added.size() && (i == old.keys.length || added.get(j).key().compareTo(old.keys[i]) < 0)) {
+                Entry entry = added.get(j++);
+                keys[size] = entry.key();
+                targets[size] = entry.target();
+                weights[size] = entry.weight();
+                size++;
+            } else {
+                keys[size] = old.keys[i];
+                targets[size] = old.targets[i];
+                weights[size] = old.weights[i];
+                size++;
+                i++;
+            }
+        }
+        return new Snapshot(Arrays.copyOf(keys, size), Arrays.copyOf(targets, size), Arrays.copyOf(weights, size));
+    }
+}
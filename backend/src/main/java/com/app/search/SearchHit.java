@@ -0,0 +1,23 @@
+package com.app.search;
+
+import com.app.model.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record SearchHit(
+        Long id,
+        String title,
+        long pricePaise,
+        String category,
+        String imageUrl,
+        Integer stock,
+        float score) {
+
+    @JsonProperty("price")
+    public double price() {
+        return Money.toRupees(pricePaise);
+    }
+
+    public SearchHit withImageUrl(String imageUrl) {
+        return new SearchHit(id, title, pricePaise, category, imageUrl, stock, score);
+    }
+}
@@ -0,0 +1,9 @@
+package com.app.search;
+
+/** One typeahead entry: a product title or a category name. productId is null for categories. */
+public record Suggestion(String text, Type type, Long productId) {
+
+    public enum Type {
+        PRODUCT, CATEGORY
+    }
+}
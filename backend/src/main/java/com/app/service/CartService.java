@@ -1,98 +1,290 @@
 package com.app.service;
 
-import com.app.model.Cart;
-import com.app.model.CartItem;
-import com.app.model.Product;
+import com.app.cart.CartChanges;
+import com.app.cart.CartLine;
+import com.app.cart.CartPersister;
+import com.app.cart.CartSnapshot;
+import com.app.cart.CartState;
+import com.app.cart.CartStore;
+import com.app.dto.CartDelta;
+import com.app.dto.CartOperation;
+import com.app.dto.CartView;
+import com.app.dto.ProductCard;
+import com.app.inventory.FlashSaleInventory;
 import com.app.model.User;
-import com.app.repository.CartRepository;
-import com.app.repository.ProductRepository;
-import com.app.repository.UserRepository;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
-import java.util.Optional;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Cart operations work on the user's {@link CartState} from the {@link CartStore}
+ * and render product details from the in-memory catalog, so browsing and editing
+ * a cart does not wait on the database. Checkout is the exception: it flushes the
+ * cart first, so the order is placed from what is actually stored.
+ */
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private static final int MAX_OPERATIONS = 100;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int STRIPES = 64;
 
-    public Cart getCart(User user) {
-        return cartRepository.findByUser(user)
-                .orElseGet(() -> createCart(user));
+    private final CartStore cartStore;
+    private final CartPersister cartPersister;
+    private final ProductService productService;
+    private final FlashSaleInventory flashSaleInventory;
+
+    // One writer per user at a time, so concurrent requests (double clicks,
+    // several tabs) queue instead of overwriting each other's changes
+    private final ReentrantLock[] locks = newLocks();
+
+    public CartView getCart(User user) {
+        return view(cartStore.get(user.getId()).snapshot());
+    }
+
+    /** Catch-up for a client holding the cart at {@code sinceRevision}. */
+    public CartDelta getCartChanges(User user, long sinceRevision) {
+        return delta(cartStore.get(user.getId()), sinceRevision);
     }
 
-    private Cart createCart(User user) {
-        Cart cart = Cart.builder()
-                .user(user)
-                .totalPrice(0.0)
-                .build();
-        return cartRepository.save(cart);
+    /** Adds {@code quantity} units; a negative quantity takes units away and drops the line at zero. */
+    public CartDelta addToCart(User user, Long productId, Integer quantity) {
+        return updateCart(user, List.of(CartOperation.increment(productId, quantity)));
     }
 
-    @Transactional
-    public Cart addToCart(User user, Long productId, Integer quantity) {
-        Cart cart = getCart(user);
+    public CartDelta removeFromCart(User user, Long productId) {
+        return updateCart(user, List.of(CartOperation.remove(productId)));
+    }
 
-        // Ensure cart is persisted if it's new
-        if (cart.getId() == null) {
-            cart = cartRepository.save(cart);
+    /**
+     * Applies a batch of operations in order, all or nothing: they are worked
+     * out against a copy of the touched lines and written to the cart as one
+     * revision, so a failing operation leaves the cart untouched. Operations on
+     * the same product see each other's result. The response carries only the
+     * lines the batch touched.
+     *
+     * Requests for the same user run one at a time on a lock stripe, so each
+     * sees the previous one's result; quantities are written as absolute values
+     * computed under that lock.
+     */
+    public CartDelta updateCart(User user, List<CartOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new RuntimeException("No cart operations given");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new RuntimeException("At most " + MAX_OPERATIONS + " cart operations per request");
+        }
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CartOperation operation : operations) {
+            if (operation == null || operation.op() == null || operation.productId() == null) {
+                throw new RuntimeException("Each cart operation needs an op and a productId");
+            }
+            if (operation.op() != CartOperation.Type.REMOVE && operation.quantity() == null) {
+                throw new RuntimeException("Quantity is required for " + operation.op());
+            }
+            productIds.add(operation.productId());
         }
 
-        // Ensure items list is not null (redundant with @Builder.Default but safe)
-        if (cart.getItems() == null) {
-            cart.setItems(new ArrayList<>());
+        ReentrantLock lock = lockFor(user.getId());
+        lock.lock();
+        try {
+            for (int attempt = 1;; attempt++) {
+                try {
+                    return apply(user.getId(), operations, productIds);
+                } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                    // Only the database store writes inline: another instance saved this cart
+                    // between our load and save. Reload and apply the operations again.
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw new RuntimeException("Cart was changed elsewhere, please try again");
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
         }
+    }
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+    private CartDelta apply(Long userId, List<CartOperation> operations, Set<Long> productIds) {
+        CartState cart = cartStore.get(userId);
+        long before = cart.revision();
+        Map<Long, CartLine> touched = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            touched.put(productId, cart.line(productId));
+        }
+        Map<Long, ProductCard> products = null;
+        for (CartOperation operation : operations) {
+            CartLine line = touched.get(operation.productId());
+            int current = line != null ? line.quantity() : 0;
+            int updated = switch (operation.op()) {
+                case SET -> operation.quantity();
+                case INCREMENT -> current + operation.quantity();
+                case REMOVE -> 0;
+            };
+            if (operation.op() == CartOperation.Type.SET && updated < 0) {
+                throw new RuntimeException("Quantity must not be negative");
+            }
+            if (updated <= 0) {
+                if (line == null && operation.op() == CartOperation.Type.INCREMENT) {
+                    throw new RuntimeException("Quantity must be positive");
+                }
+                touched.put(operation.productId(), null);
+                continue;
+            }
+            if (updated > current && flashSaleInventory.isSoldOut(operation.productId(), updated)) {
+                throw new RuntimeException("Sold out");
+            }
+            if (line == null) {
+                if (products == null) {
+                    products = productService.getCards(productIds);
+                }
+                ProductCard product = products.get(operation.productId());
+                if (product == null) {
+                    throw new RuntimeException("Product not found");
+                }
+                line = new CartLine(operation.productId(), updated, product.pricePaise());
+            } else {
+                line = new CartLine(line.productId(), updated, line.pricePaise());
+            }
+            touched.put(operation.productId(), line);
+        }
 
-        Optional<CartItem> existingItem = cart.getItems().stream()
-                .filter(item -> item.getProduct() != null && item.getProduct().getId().equals(productId))
-                .findFirst();
+        List<CartLine> upserts = new ArrayList<>();
+        List<Long> removals = new ArrayList<>();
+        touched.forEach((productId, line) -> {
+            if (line != null) {
+                upserts.add(line);
+            } else if (cart.line(productId) != null) {
+                removals.add(productId);
+            }
+        });
+        if (upserts.isEmpty() && removals.isEmpty()) {
+            return delta(cart, before);
+        }
+        cart.apply(upserts, removals);
+        cartStore.changed(cart);
+        return delta(cart, before);
+    }
 
-        if (existingItem.isPresent()) {
-            CartItem item = existingItem.get();
-            item.setQuantity((item.getQuantity() != null ? item.getQuantity() : 0) + quantity);
+    /** The cart to place an order from, written to the database first. */
+    public CartSnapshot checkout(User user) {
+        cartStore.flush(user.getId());
+        return cartStore.get(user.getId()).snapshot();
+    }
+
+    /**
+     * Empties the stored cart as part of the caller's order transaction. The
+     * ordered lines leave the in-memory cart once that transaction commits, so a
+     * failed order leaves the cart as it was. The user's lock and the store's
+     * write lock are held until the transaction completes, so neither a request
+     * nor the store can write the cart in between.
+     */
+    public void clearOrdered(User user, CartSnapshot ordered) {
+        ReentrantLock lock = lockFor(user.getId());
+        Lock writeLock = cartStore.writeLock();
+        lock.lock();
+        writeLock.lock();
+        Runnable unlock = () -> {
+            writeLock.unlock();
+            lock.unlock();
+        };
+
+        Long version;
+        try {
+            version = cartPersister.save(List.of(new CartSnapshot(user.getId(), List.of(), 0, ordered.revision(),
+                    ordered.version()))).get(user.getId());
+        } catch (RuntimeException e) {
+            unlock.run();
+            throw e;
+        }
+
+        Runnable clearMemory = () -> {
+            CartState cart = cartStore.get(user.getId());
+            if (version != null) {
+                cart.saved(version, ordered.revision());
+            }
+            cart.apply(List.of(), ordered.lines().stream().map(CartLine::productId).toList());
+            cartStore.changed(cart);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clearMemory.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    unlock.run();
+                }
+            });
         } else {
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
-                    .product(product)
-                    .quantity(quantity)
-                    .price(product.getPrice() != null ? product.getPrice() : 0.0)
-                    .build();
-            cart.getItems().add(newItem);
+            try {
+                clearMemory.run();
+            } finally {
+                unlock.run();
+            }
         }
+    }
 
-        updateCartTotal(cart);
-        return cartRepository.save(cart);
+    private static ReentrantLock[] newLocks() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
     }
 
-    @Transactional
-    public Cart removeFromCart(User user, Long productId) {
-        Cart cart = getCart(user);
-        if (cart.getItems() != null) {
-            cart.getItems().removeIf(item -> item.getProduct() != null && item.getProduct().getId().equals(productId));
+    private ReentrantLock lockFor(Long userId) {
+        return locks[Math.floorMod(Long.hashCode(userId), STRIPES)];
+    }
+
+    private CartDelta delta(CartState cart, long since) {
+        CartChanges changes = cart.changesSince(since);
+        if (changes == null) {
+            CartView full = view(cart.snapshot());
+            return new CartDelta(since, full.revision(), true, full.items(), List.of(), full.totalPaise(),
+                    full.items().size());
+        }
+        Map<Long, ProductCard> products = productService.getCards(
+                changes.changed().stream().map(CartLine::productId).toList());
+        List<CartView.Item> items = new ArrayList<>(changes.changed().size());
+        List<Long> removed = new ArrayList<>(changes.removed());
+        for (CartLine line : changes.changed()) {
+            ProductCard product = products.get(line.productId());
+            if (product != null) {
+                items.add(new CartView.Item(line.productId(), product, line.quantity(), line.pricePaise()));
+            } else {
+                removed.add(line.productId());
+            }
         }
-        updateCartTotal(cart);
-        return cartRepository.save(cart);
+        return new CartDelta(since, changes.revision(), false, items, removed, changes.totalPaise(),
+                changes.lineCount());
     }
 
-    private void updateCartTotal(Cart cart) {
-        if (cart.getItems() == null) {
-            cart.setTotalPrice(0.0);
-            return;
+    private CartView view(CartSnapshot cart) {
+        Map<Long, ProductCard> products = productService.getCards(
+                cart.lines().stream().map(CartLine::productId).toList());
+        List<CartView.Item> items = new ArrayList<>(cart.lines().size());
+        for (CartLine line : cart.lines()) {
+            ProductCard product = products.get(line.productId());
+            // A product deleted from the catalog simply stops showing
+            if (product != null) {
+                items.add(new CartView.Item(line.productId(), product, line.quantity(), line.pricePaise()));
+            }
         }
-        double total = cart.getItems().stream()
-                .filter(item -> item.getProduct() != null && item.getProduct().getPrice() != null)
-                .mapToDouble(
-                        item -> item.getProduct().getPrice() * (item.getQuantity() != null ? item.getQuantity() : 0))
-                .sum();
-        cart.setTotalPrice(total);
+        return new CartView(items, cart.totalPaise(), cart.revision());
     }
 }
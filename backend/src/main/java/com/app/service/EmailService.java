@@ -1,75 +1,69 @@
 package com.app.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.app.mail.MailDispatcher;
+import com.app.mail.MailMessage;
+import com.app.mail.MailPriority;
+import com.app.mail.MailTemplates;
+import com.app.model.Money;
+import com.app.model.Order;
+import com.app.model.OrderItem;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    // Queue wait plus send; kept under the outbox handler timeout so the outbox sees our error
+    private static final long CONFIRMATION_TIMEOUT_SECONDS = 15;
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private final MailDispatcher mailDispatcher;
+    private final MailTemplates mailTemplates;
 
+    /** Queued ahead of all other mail; returns without waiting for SMTP. */
     public void sendOtpEmail(String toEmail, String otp) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Your Login OTP - Mart App");
-            helper.setText("<h3>Your OTP for Login is within Mart App:</h3><h1>" + otp
-                    + "</h1><p>This OTP is valid for 5 minutes.</p>", true);
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to send email");
-        }
+        String html = mailTemplates.get("otp").render(Map.of("otp", otp));
+        mailDispatcher.submit(new MailMessage(toEmail, "Your Login OTP - Mart App", html, MailPriority.OTP));
     }
 
-    public void sendOrderConfirmation(String toEmail, com.app.model.Order order) {
+    /** Waits for the send, up to a limit, so the outbox can retry a failure. */
+    public void sendOrderConfirmation(String toEmail, Order order) {
+        StringBuilder items = new StringBuilder();
+        for (OrderItem item : order.getOrderItems()) {
+            items.append(mailTemplates.get("order-confirmation-item").render(Map.of(
+                    "title", item.getProduct() != null ? item.getProduct().getTitle() : "Item no longer available",
+                    "quantity", item.getQuantity(),
+                    "price", Money.format(item.getPricePaise()))));
+        }
+        String html = mailTemplates.get("order-confirmation").render(Map.of(
+                "username", order.getUser().getUsername(),
+                "orderId", order.getId(),
+                "orderDate", order.getOrderDate(),
+                "shippingAddress", String.valueOf(order.getShippingAddress()),
+                "items", items,
+                "total", Money.format(order.getTotalAmountPaise())));
+        CompletableFuture<Void> sent = mailDispatcher.submit(new MailMessage(toEmail,
+                "Order Confirmation - Order #" + order.getId(), html, MailPriority.TRANSACTIONAL));
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Order Confirmation - Order #" + order.getId());
-
-            StringBuilder html = new StringBuilder();
-            html.append("<h2>Thank you for your order!</h2>");
-            html.append("<p>Hi " + order.getUser().getUsername() + ",</p>");
-            html.append("<p>We have received your order. Here are the details:</p>");
-            html.append("<h3>Order Summary (ID: " + order.getId() + ")</h3>");
-            html.append("<p><strong>Access Date:</strong> " + order.getOrderDate() + "</p>");
-            html.append("<p><strong>Shipping Address:</strong> " + order.getShippingAddress() + "</p>");
-            html.append("<table border='1' cellpadding='5' cellspacing='0' style='border-collapse: collapse;'>");
-            html.append("<tr><th>Product</th><th>Qty</th><th>Price</th></tr>");
-
-            for (com.app.model.OrderItem item : order.getOrderItems()) {
-                html.append("<tr>");
-                html.append("<td>" + item.getProduct().getTitle() + "</td>");
-                html.append("<td>" + item.getQuantity() + "</td>");
-                html.append("<td>₹" + item.getPrice() + "</td>");
-                html.append("</tr>");
-            }
-
-            html.append("</table>");
-            html.append("<h3>Total Amount: ₹" + order.getTotalAmount() + "</h3>");
-            html.append("<p>We will notify you when your order is shipped!</p>");
-
-            helper.setText(html.toString(), true);
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-            // Don't throw exception to avoid rolling back order transaction just for email
-            // failure
-            System.err.println("Failed to send order confirmation email: " + e.getMessage());
+            sent.get(CONFIRMATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // Still queued: don't send it after the outbox has scheduled a retry
+            sent.cancel(false);
+            throw new RuntimeException("Order confirmation email not sent within "
+                    + CONFIRMATION_TIMEOUT_SECONDS + "s");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to send order confirmation email: " + e.getCause().getMessage(),
+                    e.getCause());
+        } catch (InterruptedException e) {
+            sent.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while sending order confirmation email");
         }
     }
 }
@@ -1,22 +1,43 @@
 package com.app.service;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
+@RequiredArgsConstructor
 public class FileStorageService {
 
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp", "bmp");
+
+    private final ImageVariantService imageVariantService;
+
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
 
+    /**
+     * Stores an upload under the SHA-256 of its content, so identical images are
+     * kept once. The bytes are hashed while they stream to a temp file, then the
+     * file is moved into place (or dropped if that content already exists).
+     * Variant generation is queued in the background.
+     *
+     * @return the stored file name, {@code <sha256>.<ext>}
+     */
     public String storeFile(MultipartFile file) {
         try {
             Path uploadPath = Paths.get(uploadDir);
@@ -24,13 +45,43 @@ public class FileStorageService {
                 Files.createDirectories(uploadPath);
             }
 
-            String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            Path filePath = uploadPath.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Path tempFile = uploadPath.resolve(".upload-" + UUID.randomUUID());
+            try {
+                try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                    Files.copy(in, tempFile);
+                }
 
-            return fileName;
+                String hash = HexFormat.of().formatHex(digest.digest());
+                String fileName = hash + "." + extensionOf(file.getOriginalFilename());
+                Path filePath = uploadPath.resolve(fileName);
+                if (!Files.exists(filePath)) {
+                    Files.move(tempFile, filePath, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                imageVariantService.generateAsync(filePath);
+                return fileName;
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
         } catch (IOException e) {
             throw new RuntimeException("Could not store file " + file.getOriginalFilename() + ". Please try again!", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String extensionOf(String originalName) {
+        if (originalName != null) {
+            int dot = originalName.lastIndexOf('.');
+            if (dot >= 0) {
+                String extension = originalName.substring(dot + 1).toLowerCase(Locale.ROOT);
+                if (IMAGE_EXTENSIONS.contains(extension)) {
+                    return extension.equals("jpeg") ? "jpg" : extension;
+                }
+            }
         }
+        return "img";
     }
 }
@@ -0,0 +1,32 @@
+package com.app.service;
+
+/**
+ * Pre-scaled copies generated for every uploaded product image, named
+ * {@code <sha256>-<suffix>.<ext>} next to the original. The size is the
+ * longest edge in pixels; smaller originals are never scaled up.
+ */
+public enum ImageVariant {
+    THUMBNAIL("thumb", 160),
+    CARD("card", 400),
+    DETAIL("detail", 1000);
+
+    private final String suffix;
+    private final int maxEdge;
+
+    ImageVariant(String suffix, int maxEdge) {
+        this.suffix = suffix;
+        this.maxEdge = maxEdge;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    public String fileName(String hash, String extension) {
+        return hash + "-" + suffix + "." + extension;
+    }
+}
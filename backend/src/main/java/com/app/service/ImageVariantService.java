@@ -0,0 +1,236 @@
+package com.app.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates the {@link ImageVariant}s of content-addressed uploads on a small
+ * background pool, and maps an image URL to the variant a view needs. Variants
+ * are JPEG, or PNG when the original has transparency. A WebP copy is written
+ * too when an ImageIO WebP writer is on the classpath (the JDK has none).
+ *
+ * Until all variants of an image exist, its URLs resolve to the original, so a
+ * page rendered right after an upload still shows the image.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Pattern ORIGINAL = Pattern.compile("([0-9a-f]{64})\\.([a-z]+)");
+    // Variants are written largest first, so the thumbnail existing means they all do
+    private static final Pattern LAST_VARIANT = Pattern.compile("([0-9a-f]{64})-"
+            + ImageVariant.THUMBNAIL.getSuffix() + "\\.(jpg|png)");
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final Path uploadPath;
+    private final ExecutorService workers;
+    private final boolean webpAvailable;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // hash -> extension of its variants; only present once every variant is on disk
+    private final Map<String, String> ready = new ConcurrentHashMap<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantService(@Value("${file.upload-dir:uploads}") String uploadDir,
+            @Value("${app.images.variant-threads:2}") int threads,
+            ApplicationEventPublisher eventPublisher) {
+        this.uploadPath = Paths.get(uploadDir);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(1000),
+                task -> {
+                    Thread thread = new Thread(task, "image-variants-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A dropped job is picked up again by the next upload of the image or the startup scan
+                new ThreadPoolExecutor.AbortPolicy());
+        this.webpAvailable = ImageIO.getImageWritersByFormatName("webp").hasNext();
+        ImageIO.setUseCache(false);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /** Registers variants already on disk and queues any originals that lack them. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scan() {
+        if (!Files.isDirectory(uploadPath)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadPath)) {
+            for (Path file : files) {
+                Matcher variant = LAST_VARIANT.matcher(file.getFileName().toString());
+                if (variant.matches()) {
+                    ready.put(variant.group(1), variant.group(2));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not scan " + uploadPath + ": " + e.getMessage());
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadPath)) {
+            for (Path file : files) {
+                generateAsync(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not scan " + uploadPath + ": " + e.getMessage());
+        }
+    }
+
+    /** Queues variant generation for a stored original; a no-op if done or already queued. */
+    public void generateAsync(Path original) {
+        Matcher matcher = ORIGINAL.matcher(original.getFileName().toString());
+        if (!matcher.matches()) {
+            return;
+        }
+        String hash = matcher.group(1);
+        if (ready.containsKey(hash) || !pending.add(hash)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(original, hash);
+                } catch (Exception e) {
+                    System.err.println("Could not generate variants for " + original + ": " + e.getMessage());
+                } finally {
+                    pending.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full or shutting down; the task never runs, so its finally won't clear this
+            pending.remove(hash);
+            System.err.println("Variant queue full, skipped " + original);
+        }
+    }
+
+    /**
+     * URL of {@code variant} for an uploaded image, or {@code imageUrl} itself for
+     * legacy (non content-addressed) names and images whose variants are not ready.
+     */
+    public String resolve(String imageUrl, ImageVariant variant) {
+        if (imageUrl == null) {
+            return null;
+        }
+        int slash = imageUrl.lastIndexOf('/');
+        int dot = imageUrl.lastIndexOf('.');
+        if (dot - slash - 1 != 64) {
+            return imageUrl;
+        }
+        String hash = imageUrl.substring(slash + 1, dot);
+        String extension = ready.get(hash);
+        if (extension == null) {
+            return imageUrl;
+        }
+        return imageUrl.substring(0, slash + 1) + variant.fileName(hash, extension);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void generate(Path original, String hash) throws IOException {
+        BufferedImage source = ImageIO.read(original.toFile());
+        if (source == null) {
+            System.err.println("Not a readable image, no variants made: " + original);
+            return;
+        }
+
+        boolean alpha = source.getColorModel().hasAlpha();
+        String extension = alpha ? "png" : "jpg";
+        // Largest first, so each smaller variant is scaled from an already reduced image
+        BufferedImage previous = source;
+        ImageVariant[] variants = ImageVariant.values();
+        for (int i = variants.length - 1; i >= 0; i--) {
+            ImageVariant variant = variants[i];
+            BufferedImage scaled = scale(previous, variant.getMaxEdge(), alpha);
+            write(scaled, alpha ? "png" : "jpeg", uploadPath.resolve(variant.fileName(hash, extension)));
+            if (webpAvailable) {
+                write(scaled, "webp", uploadPath.resolve(variant.fileName(hash, "webp")));
+            }
+            previous = scaled;
+        }
+        ready.put(hash, extension);
+        eventPublisher.publishEvent(new ImageVariantsReadyEvent(hash));
+    }
+
+    // Halves repeatedly before the final step; one bilinear pass from a large original aliases badly
+    private static BufferedImage scale(BufferedImage source, int maxEdge, boolean alpha) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double factor = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * factor));
+        int targetHeight = Math.max(1, (int) Math.round(height * factor));
+
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // Written to a temp name and moved, so a variant is never served half-written
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("No ImageIO writer for " + format);
+        }
+        ImageWriter writer = writers.next();
+        Path temp = target.resolveSibling("." + target.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (format.equals("jpeg")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
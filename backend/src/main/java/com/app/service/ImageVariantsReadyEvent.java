@@ -0,0 +1,8 @@
+package com.app.service;
+
+/**
+ * Published once every variant of the content-addressed image {@code hash} is on
+ * disk, so listings rendered with the original can be re-rendered with the variants.
+ */
+public record ImageVariantsReadyEvent(String hash) {
+}
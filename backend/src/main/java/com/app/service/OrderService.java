@@ -1,36 +1,92 @@
 package com.app.service;
 
+import com.app.cart.CartLine;
+import com.app.cart.CartSnapshot;
+import com.app.dto.CursorPage;
+import com.app.dto.OrderDetail;
+import com.app.dto.OrderSummary;
+import com.app.dto.ProductCard;
+import com.app.exception.OutOfStockException;
+import com.app.inventory.ReservationResult;
+import com.app.inventory.StockLine;
+import com.app.inventory.StockReservations;
 import com.app.model.*;
+import com.app.order.OrderConfirmationMail;
+import com.app.order.OrderCursor;
+import com.app.order.OrderLifecycle;
+import com.app.outbox.Outbox;
 import com.app.repository.OrderRepository;
-import jakarta.transaction.Transactional;
+import com.app.repository.ProductRepository;
+import com.app.search.ProductSuggester;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
         private final OrderRepository orderRepository;
+        private final ProductRepository productRepository;
+        private final ProductService productService;
         private final CartService cartService;
-        private final EmailService emailService;
+        private final ProductSuggester productSuggester;
+        private final StockReservations stockReservations;
+        private final TransactionTemplate transactionTemplate;
+        private final OrderLifecycle orderLifecycle;
+        private final Outbox outbox;
 
-        private static final List<String> STATUS_PIPELINE = List.of(
-                        "Placed", "On the Way", "Shipped", "Delivered");
-        private static final long SECONDS_PER_STEP = 10;
-
-        @Transactional
+        /**
+         * Reserves stock for every cart line, then saves the order. Reservations
+         * commit on their own before the order transaction starts, so a hot
+         * product's row is locked for one UPDATE rather than a whole checkout;
+         * if the order cannot be saved they are released again.
+         */
         public Order createOrder(User user, String paymentId, String shippingAddress) {
-                Cart cart = cartService.getCart(user);
-                if (cart.getItems().isEmpty()) {
+                CartSnapshot cart = cartService.checkout(user);
+                if (cart.isEmpty()) {
                         throw new RuntimeException("Cart is empty");
                 }
+                Map<Long, Product> products = new HashMap<>();
+                for (Product product : productRepository.findAllById(
+                                cart.lines().stream().map(CartLine::productId).toList())) {
+                        products.put(product.getId(), product);
+                }
+                if (products.size() < cart.lines().size()) {
+                        throw new RuntimeException("Product not found");
+                }
+
+                List<StockLine> lines = cart.lines().stream()
+                                .map(line -> new StockLine(line.productId(), line.quantity()))
+                                .toList();
+                ReservationResult reservation = stockReservations.reserve(lines);
+                if (!reservation.isComplete()) {
+                        // Payment covers the whole cart, so a partial order is not an option
+                        stockReservations.release(reservation.reserved());
+                        throw outOfStock(products, reservation);
+                }
 
+                try {
+                        return transactionTemplate.execute(
+                                        status -> placeOrder(user, cart, products, paymentId, shippingAddress));
+                } catch (RuntimeException e) {
+                        stockReservations.release(reservation.reserved());
+                        throw e;
+                }
+        }
+
+        private Order placeOrder(User user, CartSnapshot cart, Map<Long, Product> products, String paymentId,
+                        String shippingAddress) {
                 String paymentStatus = "COD".equals(paymentId) ? "Pending" : "Paid";
                 LocalDateTime now = LocalDateTime.now();
 
@@ -42,75 +98,83 @@ public class OrderService {
                                 .paymentId(paymentId)
                                 .paymentStatus(paymentStatus)
                                 .shippingAddress(shippingAddress)
-                                .totalAmount(cart.getTotalPrice())
+                                .totalAmountPaise(cart.totalPaise())
                                 .build();
 
                 List<OrderItem> orderItems = new ArrayList<>();
-                for (CartItem cartItem : cart.getItems()) {
+                for (CartLine line : cart.lines()) {
                         OrderItem orderItem = OrderItem.builder()
                                         .order(order)
-                                        .product(cartItem.getProduct())
-                                        .quantity(cartItem.getQuantity())
-                                        .price(cartItem.getPrice())
+                                        .product(products.get(line.productId()))
+                                        .quantity(line.quantity())
+                                        .pricePaise(line.pricePaise())
                                         .build();
                         orderItems.add(orderItem);
                 }
                 order.setOrderItems(orderItems);
 
                 Order savedOrder = orderRepository.save(order);
-                cart.getItems().clear();
-                cart.setTotalPrice(0.0);
-
-                try {
-                        emailService.sendOrderConfirmation(user.getEmail(), savedOrder);
-                } catch (Exception e) {
-                        System.err.println("Failed to send order confirmation email: " + e.getMessage());
-                }
+                cartService.clearOrdered(user, cart);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                                orderLifecycle.track(savedOrder);
+                                // Only orders that committed count towards suggestion ranking
+                                for (OrderItem item : orderItems) {
+                                        productSuggester.recordSale(item.getProduct().getId(), item.getQuantity());
+                                }
+                        }
+                });
+                // Mailed once this commits, so SMTP never holds up checkout
+                outbox.add(OrderConfirmationMail.TYPE, savedOrder.getId());
 
                 return savedOrder;
         }
 
-        public List<Order> getUserOrders(User user) {
-                return orderRepository.findByUser(user);
+        private static OutOfStockException outOfStock(Map<Long, Product> products, ReservationResult reservation) {
+                List<Long> rejected = reservation.rejected().stream()
+                                .map(StockLine::productId)
+                                .distinct()
+                                .toList();
+                List<String> titles = rejected.stream()
+                                .map(id -> products.get(id).getTitle())
+                                .toList();
+                return new OutOfStockException("Not enough stock for: " + String.join(", ", titles), rejected);
+        }
+
+        /** A page of the user's orders, newest first, without their lines. */
+        public CursorPage<OrderSummary> getOrderHistory(User user, String cursor, int size) {
+                OrderCursor after = OrderCursor.decode(cursor);
+                Slice<OrderSummary> slice = orderRepository.findSummariesBefore(user.getId(), after.id(),
+                                PageRequest.of(0, size));
+                List<OrderSummary> content = slice.getContent();
+                String nextCursor = slice.hasNext()
+                                ? new OrderCursor(content.get(content.size() - 1).id()).encode()
+                                : null;
+                // Counted once per scroll; later pages would only repeat it
+                long total = cursor == null ? orderRepository.countByUserId(user.getId()) : -1;
+                return new CursorPage<>(content, nextCursor, slice.hasNext(), total);
         }
 
         /**
-         * Runs every 3 seconds.
-         * Advances order status if 10 seconds have passed since the last status change.
-         * Uses statusUpdatedAt so it never gets stuck regardless of check timing.
+         * One of the user's orders with its lines. Products come from the
+         * in-memory catalog rather than a join, so this is a single query.
          */
-        @Scheduled(fixedRate = 3000)
-        @Transactional
-        public void updateOrderStatuses() {
-                List<Order> orders = orderRepository.findAll();
-                LocalDateTime now = LocalDateTime.now();
-
-                for (Order order : orders) {
-                        String currentStatus = order.getStatus();
-                        if ("Delivered".equals(currentStatus) || "Cancelled".equals(currentStatus)) {
-                                continue;
-                        }
-
-                        int currentIndex = STATUS_PIPELINE.indexOf(currentStatus);
-                        if (currentIndex < 0 || currentIndex >= STATUS_PIPELINE.size() - 1) {
-                                continue;
-                        }
-
-                        // Use statusUpdatedAt if set, fall back to orderDate for old records
-                        LocalDateTime lastChanged = order.getStatusUpdatedAt() != null
-                                        ? order.getStatusUpdatedAt()
-                                        : order.getOrderDate();
-
-                        long secondsInCurrentStatus = Duration.between(lastChanged, now).getSeconds();
-
-                        if (secondsInCurrentStatus >= SECONDS_PER_STEP) {
-                                String nextStatus = STATUS_PIPELINE.get(currentIndex + 1);
-                                order.setStatus(nextStatus);
-                                order.setStatusUpdatedAt(now);
-                                orderRepository.save(order);
-                                System.out.println("Order #" + order.getId()
-                                                + " advanced: " + currentStatus + " → " + nextStatus);
-                        }
-                }
+        public OrderDetail getOrder(User user, Long orderId) {
+                Order order = orderRepository.findByIdAndUserId(orderId, user.getId())
+                                .orElseThrow(() -> new RuntimeException("Order not found"));
+                // Reading the id of a lazy product does not load it
+                Map<Long, ProductCard> cards = productService.getCards(order.getOrderItems().stream()
+                                .filter(item -> item.getProduct() != null)
+                                .map(item -> item.getProduct().getId())
+                                .toList());
+                List<OrderDetail.Item> items = order.getOrderItems().stream()
+                                .map(item -> new OrderDetail.Item(item.getId(),
+                                                item.getProduct() != null ? cards.get(item.getProduct().getId()) : null,
+                                                item.getQuantity(), item.getPricePaise()))
+                                .toList();
+                return new OrderDetail(order.getId(), order.getOrderDate(), order.getStatusUpdatedAt(),
+                                order.getStatus(), order.getPaymentId(), order.getPaymentStatus(),
+                                order.getShippingAddress(), order.getTotalAmountPaise(), items);
         }
 }
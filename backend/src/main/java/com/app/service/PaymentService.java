@@ -1,5 +1,6 @@
 package com.app.service;
 
+import com.app.model.Money;
 import com.razorpay.Order;
 import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
@@ -30,7 +31,7 @@ public class PaymentService {
 
     public String createOrder(Double amount, String currency) throws RazorpayException {
         JSONObject orderRequest = new JSONObject();
-        orderRequest.put("amount", (int) (amount * 100));
+        orderRequest.put("amount", Money.toPaise(amount.doubleValue()));
         orderRequest.put("currency", currency != null ? currency : "INR");
         orderRequest.put("receipt", "txn_" + System.currentTimeMillis());
 
@@ -0,0 +1,105 @@
+package com.app.service;
+
+import com.app.catalog.CatalogFormat;
+import com.app.catalog.ProductCsv;
+import com.app.model.Money;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes the whole catalog to a stream straight from a forward-only JDBC
+ * result set. Rows are encoded as they arrive and never collected, so heap use
+ * does not grow with the catalog.
+ *
+ * The default fetch size, Integer.MIN_VALUE, is how MySQL Connector/J is told
+ * to stream rows one at a time rather than buffer the whole result client-side.
+ */
+@Service
+public class ProductExportService {
+
+    private static final String SQL = "SELECT id, title, description, price_paise, category, stock, image_url "
+            + "FROM product ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ProductExportService(DataSource dataSource, ObjectMapper objectMapper,
+            @Value("${app.export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+    }
+
+    public void export(OutputStream out, CatalogFormat format) throws IOException {
+        if (format == CatalogFormat.CSV) {
+            exportCsv(out);
+        } else {
+            exportNdjson(out);
+        }
+    }
+
+    private void exportCsv(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        ProductCsv.writeRecord(writer, "id", "title", "description", "price", "category", "stock", "imageUrl");
+        jdbcTemplate.query(SQL, rs -> {
+            try {
+                ProductCsv.writeRecord(writer, rs.getLong(1), rs.getString(2), rs.getString(3),
+                        Money.format(rs.getLong(4)), rs.getString(5), rs.getObject(6), rs.getString(7));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void exportNdjson(OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(new SerializedString("\n"));
+        jdbcTemplate.query(SQL, rs -> {
+            try {
+                json.writeStartObject();
+                json.writeNumberField("id", rs.getLong(1));
+                json.writeStringField("title", rs.getString(2));
+                json.writeStringField("description", rs.getString(3));
+                json.writeNumberField("price", BigDecimal.valueOf(rs.getLong(4), 2));
+                json.writeStringField("category", rs.getString(5));
+                writeNullableNumber(json, "stock", rs, 6);
+                json.writeStringField("imageUrl", rs.getString(7));
+                json.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        json.writeRaw('\n');
+        json.flush();
+    }
+
+    private static void writeNullableNumber(JsonGenerator json, String name, ResultSet rs, int column)
+            throws IOException, SQLException {
+        Object value = rs.getObject(column);
+        json.writeFieldName(name);
+        if (value == null) {
+            json.writeNull();
+        } else if (value instanceof Integer i) {
+            json.writeNumber(i);
+        } else {
+            json.writeNumber(((Number) value).doubleValue());
+        }
+    }
+}
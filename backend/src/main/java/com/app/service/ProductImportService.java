@@ -0,0 +1,274 @@
+package com.app.service;
+
+import com.app.catalog.CatalogFormat;
+import com.app.catalog.ProductCsv;
+import com.app.dto.ImportReport;
+import com.app.dto.ProductImportRow;
+import com.app.model.Money;
+import com.app.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams a CSV or NDJSON catalog file into the product table. Rows are parsed
+ * one at a time, validated, and inserted in JDBC batches, each batch in its own
+ * transaction with the persistence context cleared afterwards, so memory stays
+ * flat however large the file is. A batch the database rejects is retried row by
+ * row so only the offending rows are reported as failed.
+ */
+@Service
+public class ProductImportService {
+
+    /** Receives per-row errors and a progress report after each committed batch. */
+    public interface Listener {
+        void onRowError(long row, String message);
+
+        void onProgress(ImportReport report);
+    }
+
+    private static final int MAX_BATCH_SIZE = 5000;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProductService productService;
+    private final int defaultBatchSize;
+
+    public ProductImportService(EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            ProductService productService,
+            @Value("${app.import.batch-size:500}") int defaultBatchSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.productService = productService;
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    private record ParsedRow(ProductImportRow row, String error) {
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        ParsedRow next() throws IOException;
+    }
+
+    public ImportReport importProducts(InputStream in, CatalogFormat format, Integer batchSize, Listener listener)
+            throws IOException {
+        int size = batchSize != null && batchSize > 0 ? Math.min(batchSize, MAX_BATCH_SIZE) : defaultBatchSize;
+        long start = System.currentTimeMillis();
+        ImportReport report = new ImportReport();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        RowSource source = format == CatalogFormat.CSV ? csvSource(reader) : ndjsonSource(reader);
+
+        List<Product> batch = new ArrayList<>(size);
+        List<Long> batchRows = new ArrayList<>(size);
+        try {
+            ParsedRow parsed;
+            while ((parsed = source.next()) != null) {
+                report.rowRead();
+                long row = report.getRowsRead();
+                String problem = parsed.error() != null ? parsed.error() : validate(parsed.row());
+                if (problem != null) {
+                    report.failed();
+                    listener.onRowError(row, problem);
+                    continue;
+                }
+
+                batch.add(toProduct(parsed.row()));
+                batchRows.add(row);
+                if (batch.size() == size) {
+                    flush(batch, batchRows, size, report, listener);
+                    listener.onProgress(report);
+                }
+            }
+            flush(batch, batchRows, size, report, listener);
+        } finally {
+            if (report.getImported() > 0) {
+                productService.catalogReloaded();
+            }
+        }
+
+        report.setElapsedMillis(System.currentTimeMillis() - start);
+        System.out.println("Product import: " + report.getImported() + " imported, " + report.getFailed()
+                + " failed, " + report.getElapsedMillis() + " ms.");
+        return report;
+    }
+
+    private void flush(List<Product> batch, List<Long> batchRows, int batchSize, ImportReport report,
+            Listener listener) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            insert(batch, batchSize);
+            report.imported(batch.size());
+        } catch (RuntimeException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                Product product = batch.get(i);
+                product.setId(null); // the failed attempt already assigned one
+                try {
+                    insert(List.of(product), 1);
+                    report.imported(1);
+                } catch (RuntimeException rowFailure) {
+                    report.failed();
+                    listener.onRowError(batchRows.get(i), rootMessage(rowFailure));
+                }
+            }
+        }
+        batch.clear();
+        batchRows.clear();
+    }
+
+    private void insert(List<Product> products, int batchSize) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            for (Product product : products) {
+                entityManager.persist(product);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private RowSource csvSource(BufferedReader reader) throws IOException {
+        List<String> header = ProductCsv.readRecord(reader);
+        if (header == null) {
+            return () -> null;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("title", "price", "category")) {
+            if (!columns.containsKey(required)) {
+                throw new RuntimeException("CSV header is missing the '" + required + "' column");
+            }
+        }
+
+        return () -> {
+            List<String> record = ProductCsv.readRecord(reader);
+            if (record == null) {
+                return null;
+            }
+            try {
+                return new ParsedRow(new ProductImportRow(
+                        field(record, columns, "title"),
+                        field(record, columns, "description"),
+                        parseDouble(field(record, columns, "price"), "price"),
+                        field(record, columns, "category"),
+                        parseInteger(field(record, columns, "stock"), "stock"),
+                        field(record, columns, "imageurl")), null);
+            } catch (IllegalArgumentException e) {
+                return new ParsedRow(null, e.getMessage());
+            }
+        };
+    }
+
+    private RowSource ndjsonSource(BufferedReader reader) {
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            try {
+                return new ParsedRow(objectMapper.readValue(line, ProductImportRow.class), null);
+            } catch (JsonProcessingException e) {
+                return new ParsedRow(null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private static String validate(ProductImportRow row) {
+        if (row.title() == null || row.title().isBlank()) {
+            return "title is required";
+        }
+        if (row.title().length() > 255) {
+            return "title is longer than 255 characters";
+        }
+        if (row.description() != null && row.description().length() > 1000) {
+            return "description is longer than 1000 characters";
+        }
+        if (row.category() == null || row.category().isBlank()) {
+            return "category is required";
+        }
+        if (row.price() == null) {
+            return "price is required";
+        }
+        if (row.price() < 0 || row.price().isNaN() || row.price().isInfinite()) {
+            return "price must be a non-negative number";
+        }
+        if (row.stock() != null && row.stock() < 0) {
+            return "stock must not be negative";
+        }
+        return null;
+    }
+
+    private static Product toProduct(ProductImportRow row) {
+        return Product.builder()
+                .title(row.title().trim())
+                .description(row.description())
+                .pricePaise(Money.toPaise(row.price().doubleValue()))
+                .category(row.category().trim())
+                .stock(row.stock() != null ? row.stock() : 0)
+                .imageUrl(row.imageUrl() == null || row.imageUrl().isBlank() ? null : row.imageUrl())
+                .build();
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < record.size() ? record.get(index) : null;
+    }
+
+    private static Double parseDouble(String value, String column) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    private static Integer parseInteger(String value, String column) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + value);
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
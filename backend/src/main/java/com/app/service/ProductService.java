@@ -1,16 +1,41 @@
 package com.app.service;
 
+import com.app.cache.ProductPageCache;
+import com.app.catalog.CatalogColumns;
+import com.app.catalog.CatalogFacets;
+import com.app.catalog.CatalogQuery;
+import com.app.catalog.CatalogVersion;
+import com.app.catalog.ProductChangedEvent;
+import com.app.catalog.ProductCursor;
+import com.app.catalog.StockChangedEvent;
+import com.app.dto.CursorPage;
+import com.app.dto.ProductCard;
 import com.app.dto.ProductDto;
+import com.app.model.Money;
 import com.app.model.Product;
 import com.app.repository.ProductRepository;
+import com.app.search.ProductSearchIndex;
+import com.app.search.SearchHit;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PagedModel;
 
 @Service
 @RequiredArgsConstructor
@@ -18,13 +43,87 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final FileStorageService fileStorageService;
+    private final ImageVariantService imageVariantService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductPageCache productPageCache;
+    private final CatalogFacets catalogFacets;
+    private final CatalogColumns catalogColumns;
+    private final CatalogVersion catalogVersion;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public Page<Product> getAllProducts(String category, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        if (category != null && !category.equals("All")) {
-            return productRepository.findByCategory(category, pageable);
+    private final Set<Long> stockChanged = ConcurrentHashMap.newKeySet();
+
+    /** Filtered, sorted page of the catalog, answered from the in-memory columns. */
+    public Page<ProductCard> getAllProducts(CatalogQuery query, int page, int size) {
+        return catalogColumns.query(query, page, size).map(this::withCardImage);
+    }
+
+    /**
+     * Same listing as {@link #getAllProducts}, but served as pre-encoded JSON from
+     * the page cache. Only a miss runs the query.
+     */
+    public ProductPageCache.Entry getProductPage(CatalogQuery query, int page, int size) {
+        ProductPageCache.Key key = ProductPageCache.Key.of(query, page, size);
+        ProductPageCache.Entry cached = productPageCache.get(key);
+        if (cached != null) {
+            return cached;
         }
-        return productRepository.findAll(pageable);
+
+        long generation = productPageCache.generation();
+        Page<ProductCard> result = getAllProducts(query, page, size);
+        long[] ids = result.getContent().stream().mapToLong(ProductCard::id).toArray();
+        return productPageCache.put(key, generation, new PagedModel<>(result), ids);
+    }
+
+    /**
+     * Keyset listing for infinite scroll: every page costs the same no matter how
+     * deep it is, and the total comes from the in-memory facets instead of COUNT(*).
+     */
+    public CursorPage<ProductCard> scrollProducts(String category, String sort, String cursor, int size) {
+        ProductCursor.Sort order = ProductCursor.Sort.from(sort);
+        ProductCursor after = ProductCursor.decode(cursor, order);
+        String filter = category != null && !category.equals("All") ? category : null;
+        Pageable pageable = PageRequest.of(0, size);
+
+        Slice<ProductCard> slice;
+        if (order == ProductCursor.Sort.PRICE) {
+            slice = filter != null
+                    ? productRepository.findCardsByCategoryAfterPrice(filter, after.pricePaise(), after.id(), pageable)
+                    : productRepository.findCardsAfterPrice(after.pricePaise(), after.id(), pageable);
+        } else {
+            slice = filter != null
+                    ? productRepository.findCardsByCategoryAfterId(filter, after.id(), pageable)
+                    : productRepository.findCardsAfterId(after.id(), pageable);
+        }
+
+        List<ProductCard> content = slice.getContent().stream().map(this::withCardImage).toList();
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            ProductCard last = content.get(content.size() - 1);
+            nextCursor = new ProductCursor(order, last.pricePaise(), last.id()).encode();
+        }
+        return new CursorPage<>(content, nextCursor, slice.hasNext(), catalogFacets.count(filter));
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        return productSearchIndex.search(query, limit).stream()
+                .map(hit -> hit.withImageUrl(imageVariantService.resolve(hit.imageUrl(), ImageVariant.THUMBNAIL)))
+                .toList();
+    }
+
+    /** Product for the detail page, with its image pointing at the detail-sized variant. */
+    public Optional<Product> findProductForDisplay(Long id) {
+        return productRepository.findById(id)
+                .map(product -> product.toBuilder()
+                        .imageUrl(imageVariantService.resolve(product.getImageUrl(), ImageVariant.DETAIL))
+                        .build());
+    }
+
+    /** Listing cards for products in a cart, served from the in-memory catalog. */
+    public Map<Long, ProductCard> getCards(Collection<Long> ids) {
+        Map<Long, ProductCard> cards = catalogColumns.cards(ids);
+        cards.replaceAll((id, card) -> withCardImage(card));
+        return cards;
     }
 
     public Product getProductById(Long id) {
@@ -41,21 +140,24 @@ public class ProductService {
         Product product = Product.builder()
                 .title(productDto.getTitle())
                 .description(productDto.getDescription())
-                .price(productDto.getPrice())
+                .pricePaise(Money.toPaise(productDto.getPrice()))
                 .category(productDto.getCategory())
                 .stock(productDto.getStock())
                 .imageUrl(imageUrl)
                 .build();
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        publish(ProductChangedEvent.created(saved));
+        return saved;
     }
 
     public Product updateProduct(Long id, ProductDto productDto, String imageUrl) {
         Product product = getProductById(id);
+        String previousCategory = product.getCategory();
 
         product.setTitle(productDto.getTitle());
         product.setDescription(productDto.getDescription());
-        product.setPrice(productDto.getPrice());
+        product.setPricePaise(Money.toPaise(productDto.getPrice()));
         product.setCategory(productDto.getCategory());
         product.setStock(productDto.getStock());
 
@@ -63,10 +165,79 @@ public class ProductService {
             product.setImageUrl(imageUrl);
         }
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        publish(ProductChangedEvent.updated(previousCategory, saved));
+        return saved;
     }
 
     public void deleteProduct(Long id) {
+        String previousCategory = productRepository.findById(id)
+                .map(Product::getCategory)
+                .orElse(null);
         productRepository.deleteById(id);
+        publish(ProductChangedEvent.deleted(id, previousCategory));
+    }
+
+    /** For writers that bypass the methods above, such as the bulk importer. */
+    public void catalogReloaded() {
+        publish(ProductChangedEvent.reloaded());
+    }
+
+    /**
+     * Marks products whose stock was changed outside the methods above (checkout
+     * reservations and releases). Cheap enough to call on the checkout path: the
+     * new counts are read and published by {@link #publishStockChanges}.
+     */
+    public void stockChanged(Collection<Long> productIds) {
+        stockChanged.addAll(productIds);
+    }
+
+    /**
+     * Publishes the stock of every product marked since the last run as one
+     * {@link StockChangedEvent}, read with one query, and bumps the catalog
+     * version once, so a checkout burst moves the ETag once per interval.
+     */
+    @Scheduled(fixedDelayString = "${app.catalog.stock-publish-ms:1000}")
+    public void publishStockChanges() {
+        if (stockChanged.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(stockChanged);
+        // Removed before the read, so a change racing it is marked again and not lost
+        stockChanged.removeAll(ids);
+        Map<Long, Integer> stock = new HashMap<>();
+        try {
+            for (Object[] row : productRepository.findStockByIdIn(ids)) {
+                stock.put((Long) row[0], row[1] != null ? (Integer) row[1] : 0);
+            }
+        } catch (RuntimeException e) {
+            stockChanged.addAll(ids);
+            System.err.println("Could not read changed stock, will retry: " + e.getMessage());
+            return;
+        }
+        if (!stock.isEmpty()) {
+            eventPublisher.publishEvent(new StockChangedEvent(stock));
+            catalogVersion.bump();
+        }
+    }
+
+    /**
+     * Cached pages and ETags still point at the original image; republish the
+     * products using it so they are re-rendered with the new variants.
+     */
+    @EventListener
+    public void onImageVariantsReady(ImageVariantsReadyEvent event) {
+        for (Product product : productRepository.findByImageUrlContaining(event.hash())) {
+            publish(ProductChangedEvent.updated(product.getCategory(), product));
+        }
+    }
+
+    private ProductCard withCardImage(ProductCard card) {
+        return card.withImageUrl(imageVariantService.resolve(card.imageUrl(), ImageVariant.CARD));
+    }
+
+    private void publish(ProductChangedEvent event) {
+        eventPublisher.publishEvent(event);
+        catalogVersion.bump();
     }
 }
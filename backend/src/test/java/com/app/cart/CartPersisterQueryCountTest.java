@@ -0,0 +1,126 @@
+package com.app.cart;
+
+import com.app.model.Cart;
+import com.app.model.CartItem;
+import com.app.model.Product;
+import com.app.model.Role;
+import com.app.model.User;
+import com.app.repository.CartRepository;
+import com.app.repository.ProductRepository;
+import com.app.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cart loads and flushes run for every active cart, so each is pinned to a
+ * fixed number of statements however many lines the cart has.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CartPersisterQueryCountTest {
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private CartPersister cartPersister;
+    private Statistics statistics;
+    private User user;
+    private Product extra;
+
+    @BeforeEach
+    void setUp() {
+        cartPersister = new CartPersister(cartRepository, entityManager, transactionManager);
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        user = userRepository.save(User.builder().username("asha").email("asha@example.com")
+                .role(Role.USER).enabled(true).build());
+        Cart cart = Cart.builder().user(user).build();
+        for (int i = 0; i < 5; i++) {
+            Product product = productRepository.save(Product.builder().title("Item " + i).pricePaise(10_000 + i * 100)
+                    .category("Misc").stock(10).build());
+            cart.getItems().add(CartItem.builder().cart(cart).product(product).quantity(1)
+                    .pricePaise(product.getPricePaise()).build());
+        }
+        cartRepository.save(cart);
+        extra = productRepository.save(Product.builder().title("Extra").pricePaise(5_000).category("Misc")
+                .stock(10).build());
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void loadingTheCartIsOneQuery() {
+        CartState cart = cartPersister.load(user.getId());
+
+        assertThat(cart.snapshot().lines()).hasSize(5);
+        assertThat(cart.snapshot().totalPaise()).isEqualTo(51_000);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void savingANewLineInsertsOnlyThatLine() {
+        CartState cart = loaded();
+        cart.apply(List.of(new CartLine(extra.getId(), 2, 5_000)), List.of());
+
+        save(cart);
+
+        // cart + lines + products, insert line, update total
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void savingAQuantityChangeUpdatesOnlyThatLine() {
+        CartState cart = loaded();
+        CartLine first = cart.snapshot().lines().get(0);
+        cart.apply(List.of(new CartLine(first.productId(), 3, first.pricePaise())), List.of());
+
+        save(cart);
+
+        // cart + lines + products, update line, update total
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void savingARemovalDeletesOnlyThatLine() {
+        CartState cart = loaded();
+        cart.apply(List.of(), List.of(cart.snapshot().lines().get(0).productId()));
+
+        save(cart);
+
+        // cart + lines + products, delete line, update total
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(cartPersister.load(user.getId()).snapshot().lines()).hasSize(4);
+    }
+
+    private CartState loaded() {
+        CartState cart = cartPersister.load(user.getId());
+        entityManager.clear();
+        statistics.clear();
+        return cart;
+    }
+
+    private void save(CartState cart) {
+        cartPersister.save(List.of(cart.snapshot()));
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
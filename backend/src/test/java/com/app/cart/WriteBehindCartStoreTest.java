@@ -0,0 +1,130 @@
+package com.app.cart;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WriteBehindCartStoreTest {
+
+    private final CartPersister persister = mock(CartPersister.class);
+    private final List<List<CartSnapshot>> saved = new ArrayList<>();
+
+    WriteBehindCartStoreTest() {
+        when(persister.load(anyLong())).thenAnswer(call -> new CartState(call.getArgument(0)));
+        doAnswer(call -> {
+            saved.add(call.getArgument(0));
+            return Map.of();
+        }).when(persister).save(any());
+    }
+
+    @Test
+    void coalescesChangesIntoOneWrite() {
+        WriteBehindCartStore store = new WriteBehindCartStore(persister, 100);
+        for (long user = 1; user <= 3; user++) {
+            CartState cart = store.get(user);
+            for (int quantity = 1; quantity <= 5; quantity++) {
+                cart.apply(List.of(new CartLine(10L, quantity, 200)), List.of());
+                store.changed(cart);
+            }
+        }
+
+        store.flushAll();
+
+        assertThat(saved).hasSize(1);
+        assertThat(saved.get(0)).hasSize(3).allSatisfy(snapshot -> assertThat(snapshot.totalPaise()).isEqualTo(1_000));
+        assertThat(store.dirtyCount()).isZero();
+
+        store.flushAll();
+        assertThat(saved).hasSize(1);
+    }
+
+    @Test
+    void evictedCartKeepsItsUnsavedChanges() {
+        WriteBehindCartStore store = new WriteBehindCartStore(persister, 1);
+        CartState first = store.get(1L);
+        first.apply(List.of(new CartLine(10L, 2, 500)), List.of());
+        store.changed(first);
+
+        store.get(2L); // evicts user 1
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.get(1L)).isSameAs(first);
+        verify(persister, times(1)).load(1L);
+    }
+
+    @Test
+    void changeToCartEvictedMidUseReplacesTheReloadedCopy() {
+        WriteBehindCartStore store = new WriteBehindCartStore(persister, 1);
+        CartState held = store.get(1L);
+        store.get(2L); // evicts user 1 while a request still holds its cart
+        CartState reloaded = store.get(1L);
+        assertThat(reloaded).isNotSameAs(held);
+
+        held.apply(List.of(new CartLine(10L, 1, 500)), List.of());
+        store.changed(held);
+        CartState current = store.get(1L);
+        current.apply(List.of(new CartLine(11L, 1, 300)), List.of());
+        store.changed(current);
+        store.flushAll();
+
+        assertThat(current).isSameAs(held);
+        assertThat(saved).hasSize(1);
+        assertThat(saved.get(0).get(0).lines()).extracting(CartLine::productId).containsExactlyInAnyOrder(10L, 11L);
+    }
+
+    @Test
+    void flushWritesOnlyThatUsersPendingCart() {
+        WriteBehindCartStore store = new WriteBehindCartStore(persister, 100);
+        CartState cart = store.get(1L);
+        store.flush(1L);
+        verify(persister, never()).save(any());
+
+        cart.apply(List.of(new CartLine(10L, 1, 500)), List.of());
+        store.changed(cart);
+        store.changed(store.get(2L));
+        store.flush(1L);
+
+        assertThat(saved).hasSize(1);
+        assertThat(saved.get(0)).extracting(CartSnapshot::userId).containsExactly(1L);
+        assertThat(store.dirtyCount()).isEqualTo(1);
+    }
+
+    @Test
+    void conflictingWriteIsReplayedOnTopOfTheStoredCart() {
+        CartState stored = new CartState(1L);
+        stored.load(List.of(new CartLine(11L, 1, 300)), 5, 3);
+        when(persister.load(1L)).thenReturn(new CartState(1L), stored);
+        doThrow(new ObjectOptimisticLockingFailureException(CartState.class, 1L))
+                .doAnswer(call -> {
+                    saved.add(call.getArgument(0));
+                    return Map.of(1L, 4L);
+                }).when(persister).save(any());
+        WriteBehindCartStore store = new WriteBehindCartStore(persister, 100);
+        CartState cart = store.get(1L);
+        cart.apply(List.of(new CartLine(10L, 2, 500)), List.of());
+        store.changed(cart);
+
+        store.flush(1L);
+
+        assertThat(saved).hasSize(1);
+        CartSnapshot written = saved.get(0).get(0);
+        assertThat(written.lines()).extracting(CartLine::productId).containsExactlyInAnyOrder(10L, 11L);
+        assertThat(written.version()).isEqualTo(3L);
+        assertThat(written.revision()).isGreaterThan(5);
+        assertThat(store.dirtyCount()).isZero();
+    }
+}
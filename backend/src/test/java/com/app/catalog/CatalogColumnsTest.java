@@ -0,0 +1,109 @@
+package com.app.catalog;
+
+import com.app.dto.ProductCard;
+import com.app.model.Product;
+import com.app.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class CatalogColumnsTest {
+
+    private CatalogColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        List<Product> products = List.of(
+                product(1L, "iPhone 15", 7_990_000L, "Mobiles", 5),
+                product(2L, "Galaxy S24", 7_499_900L, "Mobiles", 0),
+                product(3L, "MacBook Air", 11_490_000L, "Laptops", 2),
+                product(4L, "Redmi 13", 1_299_900L, "Mobiles", 9),
+                product(5L, "ThinkPad E14", 7_499_900L, "Laptops", 1));
+
+        ProductRepository repository = mock(ProductRepository.class);
+        doAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(1);
+            products.forEach(consumer);
+            return null;
+        }).when(repository).forEachProduct(anyInt(), any());
+
+        columns = new CatalogColumns(repository);
+        columns.rebuild();
+    }
+
+    @Test
+    void filtersByCategoryStockAndPrice() {
+        Page<ProductCard> page = columns.query(CatalogQuery.of("Mobiles", 10_000.0, 80_000.0, true, null), 0, 10);
+
+        assertThat(page.getContent()).extracting(ProductCard::id).containsExactly(1L, 4L);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void sortsByPriceWithIdTiebreakAndPaginates() {
+        Page<ProductCard> first = columns.query(CatalogQuery.of(null, null, null, false, "price"), 0, 2);
+        Page<ProductCard> second = columns.query(CatalogQuery.of(null, null, null, false, "price"), 1, 2);
+        Page<ProductCard> descending = columns.query(CatalogQuery.of(null, null, null, false, "price_desc"), 0, 1);
+
+        assertThat(first.getContent()).extracting(ProductCard::id).containsExactly(4L, 2L);
+        assertThat(second.getContent()).extracting(ProductCard::id).containsExactly(5L, 1L);
+        assertThat(first.getTotalElements()).isEqualTo(5);
+        assertThat(descending.getContent()).extracting(ProductCard::id).containsExactly(3L);
+    }
+
+    @Test
+    void followsProductChanges() {
+        Product moved = product(2L, "Galaxy S24", 6_000_000L, "Tablets", 3);
+        columns.onProductChanged(ProductChangedEvent.updated("Mobiles", moved));
+        columns.onProductChanged(ProductChangedEvent.deleted(4L, "Mobiles"));
+        columns.onProductChanged(ProductChangedEvent.created(product(6L, "iPad", 3_490_000L, "Tablets", 4)));
+
+        assertThat(columns.query(CatalogQuery.category("Mobiles"), 0, 10).getContent())
+                .extracting(ProductCard::id).containsExactly(1L);
+        assertThat(columns.query(CatalogQuery.category("Tablets"), 0, 10).getContent())
+                .extracting(ProductCard::id).containsExactly(2L, 6L);
+        assertThat(columns.query(CatalogQuery.of(null, null, null, false, "price"), 0, 1).getContent())
+                .extracting(ProductCard::id).containsExactly(6L);
+    }
+
+    @Test
+    void stockChangesArePatchedInPlace() {
+        columns.onStockChanged(new StockChangedEvent(Map.of(1L, 0, 2L, 3)));
+
+        assertThat(columns.query(CatalogQuery.of("Mobiles", null, null, true, null), 0, 10).getContent())
+                .extracting(ProductCard::id, ProductCard::stock)
+                .containsExactly(tuple(2L, 3), tuple(4L, 9));
+    }
+
+    @Test
+    void changesThatKeepPriceAndCategoryArePatchedInPlace() {
+        columns.onProductChanged(ProductChangedEvent.updated("Mobiles", product(1L, "iPhone 15 Pro", 7_990_000L,
+                "Mobiles", 0)));
+        columns.onProductChanged(ProductChangedEvent.created(product(6L, "iPad", 3_490_000L, "Tablets", 4)));
+        // Still queued from the create, so this one must be merged rather than patched
+        columns.onProductChanged(ProductChangedEvent.updated("Tablets", product(6L, "iPad Air", 3_490_000L,
+                "Tablets", 2)));
+
+        assertThat(columns.query(CatalogQuery.of("Mobiles", null, null, true, null), 0, 10).getContent())
+                .extracting(ProductCard::id).containsExactly(4L);
+        assertThat(columns.cards(List.of(1L, 6L)).values())
+                .extracting(ProductCard::title, ProductCard::stock)
+                .containsExactlyInAnyOrder(tuple("iPhone 15 Pro", 0), tuple("iPad Air", 2));
+    }
+
+    private static Product product(Long id, String title, long pricePaise, String category, Integer stock) {
+        return Product.builder().id(id).title(title).pricePaise(pricePaise).category(category).stock(stock)
+                .build();
+    }
+}
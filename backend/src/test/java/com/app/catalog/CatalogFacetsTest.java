@@ -0,0 +1,43 @@
+package com.app.catalog;
+
+import com.app.dto.FacetSummary;
+import com.app.model.Product;
+import com.app.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class CatalogFacetsTest {
+
+    @Test
+    void onlyExistingCategoriesAreCached() {
+        List<Product> products = List.of(
+                Product.builder().id(1L).title("iPhone 15").pricePaise(7_990_000L).category("Mobiles").stock(5).build(),
+                Product.builder().id(2L).title("MacBook Air").pricePaise(11_490_000L).category("Laptops").stock(0)
+                        .build());
+        ProductRepository repository = mock(ProductRepository.class);
+        doAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(1);
+            products.forEach(consumer);
+            return null;
+        }).when(repository).forEachProduct(anyInt(), any());
+        CatalogFacets facets = new CatalogFacets(repository);
+        facets.rebuild();
+
+        assertThat(facets.summary("Mobiles").total()).isEqualTo(1);
+        assertThat(facets.summary(null).total()).isEqualTo(2);
+        for (int i = 0; i < 1_000; i++) {
+            FacetSummary unknown = facets.summary("no-such-category-" + i);
+            assertThat(unknown.total()).isZero();
+        }
+
+        assertThat(facets.cachedSummaries()).isEqualTo(2);
+    }
+}
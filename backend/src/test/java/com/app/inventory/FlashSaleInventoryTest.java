@@ -0,0 +1,61 @@
+package com.app.inventory;
+
+import com.app.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FlashSaleInventoryTest {
+
+    @TempDir
+    Path dir;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    void reservesUntilSoldOut() throws Exception {
+        FlashSaleInventory inventory = start();
+        inventory.enable(7L);
+
+        assertThat(inventory.tryReserve(7L, 3)).isEqualTo(FlashSaleInventory.Outcome.RESERVED);
+        assertThat(inventory.tryReserve(7L, 3)).isEqualTo(FlashSaleInventory.Outcome.RESERVED);
+        assertThat(inventory.tryReserve(7L, 5)).isEqualTo(FlashSaleInventory.Outcome.REJECTED);
+        assertThat(inventory.tryReserve(8L, 1)).isEqualTo(FlashSaleInventory.Outcome.NOT_ON_SALE);
+        assertThat(inventory.available()).containsEntry(7L, 4L);
+        inventory.shutdown();
+    }
+
+    @Test
+    void replaysUnflushedReservationsAfterACrash() throws Exception {
+        FlashSaleInventory crashed = start();
+        crashed.enable(7L);
+        crashed.tryReserve(7L, 3);
+        crashed.release(7L, 1);
+        crashed.sync(); // durable, but never flushed to the table
+
+        FlashSaleInventory restarted = start();
+
+        verify(jdbcTemplate).update("UPDATE product SET stock = stock - ? WHERE id = ?", 2L, 7L);
+        assertThat(restarted.available()).containsKey(7L);
+        restarted.shutdown();
+    }
+
+    private FlashSaleInventory start() throws Exception {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(7L))).thenReturn(List.of(10L));
+        FlashSaleInventory inventory = new FlashSaleInventory(jdbcTemplate, mock(PlatformTransactionManager.class),
+                mock(ProductService.class), dir.resolve("flash-sale.journal").toString());
+        inventory.recover();
+        return inventory;
+    }
+}
@@ -0,0 +1,104 @@
+package com.app.inventory;
+
+import com.app.model.Product;
+import com.app.repository.ProductRepository;
+import com.app.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Concurrent checkouts against the real table, each reservation committing on its own. */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationsTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ProductService productService = mock(ProductService.class);
+    private StockReservations reservations;
+    private Product lastOne;
+
+    @BeforeEach
+    void setUp() {
+        FlashSaleInventory flashSale = mock(FlashSaleInventory.class);
+        when(flashSale.tryReserve(anyLong(), anyInt())).thenReturn(FlashSaleInventory.Outcome.NOT_ON_SALE);
+        reservations = new StockReservations(jdbcTemplate, transactionManager, productService, flashSale);
+        lastOne = productRepository.save(Product.builder().title("Phone").pricePaise(1_500_000)
+                .category("Mobiles").stock(1).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void onlyOneOfManyConcurrentCheckoutsGetsTheLastUnit() throws Exception {
+        int checkouts = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(checkouts);
+        List<Future<ReservationResult>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < checkouts; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return reservations.reserve(List.of(new StockLine(lastOne.getId(), 1)));
+                }));
+            }
+            start.countDown();
+            int complete = 0;
+            for (Future<ReservationResult> result : results) {
+                if (result.get().isComplete()) {
+                    complete++;
+                }
+            }
+            assertThat(complete).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(stock()).isZero();
+        verify(productService, atLeastOnce()).stockChanged(argThat(ids -> ids.contains(lastOne.getId())));
+    }
+
+    @Test
+    void releasePutsTheStockBack() {
+        ReservationResult result = reservations.reserve(List.of(new StockLine(lastOne.getId(), 1)));
+        assertThat(result.isComplete()).isTrue();
+        assertThat(stock()).isZero();
+
+        reservations.release(result.reserved());
+
+        assertThat(stock()).isEqualTo(1);
+    }
+
+    private int stock() {
+        return jdbcTemplate.queryForObject("SELECT stock FROM product WHERE id = ?", Integer.class, lastOne.getId());
+    }
+}
@@ -0,0 +1,121 @@
+package com.app.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailDispatcherTest {
+
+    private FakeSmtpServer server;
+    private MailTransportPool pool;
+    private MailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeSmtpServer();
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(server.port());
+        pool = new MailTransportPool(sender, 1, 2_000);
+        dispatcher = new MailDispatcher(pool, "shop@example.com", 3);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dispatcher.shutdown();
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    void messagesShareOnePooledConnection() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            dispatcher.submit(mail("user" + i + "@example.com", MailPriority.OTP)).get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(server.messages()).hasSize(5);
+        assertThat(server.messages().get(0)).contains("user0@example.com").contains("Subject: OTP");
+        assertThat(server.connections()).isEqualTo(1);
+
+        MailStats stats = dispatcher.stats();
+        assertThat(stats.sent()).isEqualTo(5);
+        assertThat(stats.queued()).isZero();
+        assertThat(stats.maxSendMillis()).isPositive();
+    }
+
+    @Test
+    void stalledServerFailsTheSendAfterTheTimeout() throws Exception {
+        server.hold();
+        CompletableFuture<Void> stalled = dispatcher.submit(mail("late@example.com", MailPriority.TRANSACTIONAL));
+        server.awaitHeld();
+
+        assertThatThrownBy(() -> stalled.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseInstanceOf(SocketTimeoutException.class);
+        assertThat(dispatcher.stats().failed()).isEqualTo(1);
+    }
+
+    @Test
+    void urgentMailJumpsTheQueue() throws Exception {
+        server.hold();
+        dispatcher.submit(mail("first@example.com", MailPriority.MARKETING));
+        server.awaitHeld();
+
+        dispatcher.submit(mail("promo@example.com", MailPriority.MARKETING));
+        dispatcher.submit(mail("order@example.com", MailPriority.TRANSACTIONAL));
+        dispatcher.submit(mail("otp@example.com", MailPriority.OTP));
+        assertThat(dispatcher.stats().queuedByPriority()).containsEntry(MailPriority.MARKETING, 1);
+        server.release();
+        server.awaitMessages(4);
+
+        assertThat(server.messages()).hasSize(4);
+        assertThat(server.messages().get(1)).contains("otp@example.com");
+        assertThat(server.messages().get(2)).contains("order@example.com");
+        assertThat(server.messages().get(3)).contains("promo@example.com");
+    }
+
+    @Test
+    void fullQueueDropsLessUrgentMailOrRefuses() throws Exception {
+        server.hold();
+        dispatcher.submit(mail("first@example.com", MailPriority.MARKETING));
+        server.awaitHeld();
+        dispatcher.submit(mail("promo1@example.com", MailPriority.MARKETING));
+        CompletableFuture<Void> promo = dispatcher.submit(mail("promo2@example.com", MailPriority.MARKETING));
+        dispatcher.submit(mail("order@example.com", MailPriority.TRANSACTIONAL));
+
+        CompletableFuture<Void> otp = dispatcher.submit(mail("otp@example.com", MailPriority.OTP));
+
+        // The newest of the least urgent goes
+        assertThat(promo).isCompletedExceptionally();
+        assertThatThrownBy(() -> dispatcher.submit(mail("promo3@example.com", MailPriority.MARKETING)))
+                .hasMessage("Mail queue is full, please try again");
+        assertThat(dispatcher.stats().rejected()).isEqualTo(2);
+
+        server.release();
+        otp.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void aDroppedConnectionIsReopened() throws Exception {
+        dispatcher.submit(mail("a@example.com", MailPriority.OTP)).get(5, TimeUnit.SECONDS);
+        pool.close();
+
+        dispatcher.submit(mail("b@example.com", MailPriority.OTP)).get(5, TimeUnit.SECONDS);
+
+        assertThat(server.messages()).hasSize(2);
+        assertThat(server.connections()).isEqualTo(2);
+    }
+
+    private static MailMessage mail(String to, MailPriority priority) {
+        return new MailMessage(to, priority.name(), "<p>Hello</p>", priority);
+    }
+}
@@ -0,0 +1,34 @@
+package com.app.mail;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailTemplateTest {
+
+    @Test
+    void escapesValuesUnlessTripleBraced() {
+        MailTemplate template = MailTemplate.compile("<p>Hi {{ name }},</p><table>{{{rows}}}</table>");
+
+        String html = template.render(Map.of("name", "<Asha & Co>", "rows", "<tr><td>1</td></tr>"));
+
+        assertThat(html).isEqualTo("<p>Hi &lt;Asha &amp; Co&gt;,</p><table><tr><td>1</td></tr></table>");
+    }
+
+    @Test
+    void missingValuesAreAnError() {
+        MailTemplate template = MailTemplate.compile("<h1>{{otp}}</h1>");
+
+        assertThatThrownBy(() -> template.render(Map.of())).hasMessage("No value for otp");
+    }
+
+    @Test
+    void bundledTemplatesCompile() {
+        MailTemplates templates = new MailTemplates();
+
+        assertThat(templates.get("otp").render(Map.of("otp", "123456"))).contains("<h1>123456</h1>");
+    }
+}
@@ -0,0 +1,187 @@
+package com.app.order;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class OrderEventStreamTest {
+
+    @RestController
+    static class StreamController {
+
+        private final OrderEventStream stream;
+
+        StreamController(OrderEventStream stream) {
+            this.stream = stream;
+        }
+
+        @GetMapping("/stream")
+        SseEmitter stream(@RequestParam Long user,
+                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+            return stream.subscribe(user, lastEventId);
+        }
+    }
+
+    private final OrderEventStream stream = new OrderEventStream(60_000, 3, 4, 60_000, 2);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(stream)).build();
+
+    @Test
+    void pushesOnlyTheUsersOwnOrders() throws Exception {
+        MvcResult result = open(1L, null);
+
+        stream.onStatusChanged(changed(10L, 2L, "Shipped"));
+        stream.onStatusChanged(changed(11L, 1L, "Shipped"));
+
+        String body = awaitContent(result, "\"id\":11");
+        assertThat(body).contains("event:status").contains("\"status\":\"Shipped\"");
+        assertThat(body).doesNotContain("\"id\":10");
+        assertThat(stream.connections()).isEqualTo(1);
+    }
+
+    @Test
+    void resumesAfterTheLastEventSeen() throws Exception {
+        MvcResult first = open(1L, null);
+        stream.onStatusChanged(changed(10L, 1L, "On the Way"));
+        String lastSeen = lastId(awaitContent(first, "\"id\":10"));
+        stream.onStatusChanged(changed(10L, 1L, "Shipped"));
+        stream.onStatusChanged(changed(12L, 2L, "Shipped"));
+
+        MvcResult resumed = open(1L, lastSeen);
+
+        String body = awaitContent(resumed, "Shipped");
+        assertThat(body).doesNotContain("On the Way").doesNotContain("\"id\":12").doesNotContain("reset");
+    }
+
+    @Test
+    void clientsThatCannotResumeAreToldToReload() throws Exception {
+        MvcResult first = open(1L, null);
+        stream.onStatusChanged(changed(10L, 1L, "On the Way"));
+        String lastSeen = lastId(awaitContent(first, "\"id\":10"));
+        // Pushes the event after the one last seen out of the history of 3
+        for (int i = 0; i < 4; i++) {
+            stream.onStatusChanged(changed(20L + i, 2L, "Shipped"));
+        }
+
+        assertThat(awaitContent(open(1L, lastSeen), "event:reset")).doesNotContain("\"id\":10");
+        // An id from before a restart
+        assertThat(awaitContent(open(1L, "abc-5"), "event:reset")).contains("event:reset");
+    }
+
+    @Test
+    void clientThatStopsReadingIsDroppedWithoutHoldingUpOthers() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        SseEmitter stalled = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try {
+                    unblock.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        try {
+            stream.subscribe(1L, null, stalled);
+            MvcResult reading = open(1L, null);
+
+            // Each event reaches the reading client while the stalled one's queue of 4 fills up
+            for (long order = 10; order < 16; order++) {
+                stream.onStatusChanged(changed(order, 1L, "Shipped"));
+                awaitContent(reading, "\"id\":" + order);
+            }
+
+            assertThat(stream.connections()).isEqualTo(1);
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    @Test
+    void stalledWritesDoNotPinTheSenderThreads() throws Exception {
+        OrderEventStream quick = new OrderEventStream(60_000, 3, 4, 1, 2);
+        MockMvc quickMvc = MockMvcBuilders.standaloneSetup(new StreamController(quick)).build();
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountDownLatch stuck = new CountDownLatch(2);
+        try {
+            // Two clients that stop reading, one per sender thread
+            for (int i = 0; i < 2; i++) {
+                quick.subscribe(1L, null, new SseEmitter() {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        stuck.countDown();
+                        try {
+                            unblock.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+            assertThat(stuck.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(5);
+            quick.heartbeat();
+            assertThat(quick.senderThreads()).isEqualTo(4);
+
+            MvcResult reading = quickMvc.perform(get("/stream").param("user", "1"))
+                    .andExpect(request().asyncStarted()).andReturn();
+            quick.onStatusChanged(changed(10L, 1L, "Shipped"));
+            awaitContent(reading, "\"id\":10");
+        } finally {
+            unblock.countDown();
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (quick.senderThreads() != 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(quick.senderThreads()).isEqualTo(2);
+        quick.shutdown();
+    }
+
+    private MvcResult open(Long user, String lastEventId) throws Exception {
+        var request = get("/stream").param("user", user.toString());
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private static OrderStatusChangedEvent changed(Long orderId, Long userId, String status) {
+        return new OrderStatusChangedEvent(orderId, userId, status, LocalDateTime.now());
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String body = result.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            body = result.getResponse().getContentAsString();
+        }
+        assertThat(body).contains(expected);
+        return body;
+    }
+
+    private static String lastId(String body) {
+        Matcher ids = Pattern.compile("(?m)^id:(.+)$").matcher(body);
+        String last = null;
+        while (ids.find()) {
+            last = ids.group(1);
+        }
+        return last;
+    }
+}
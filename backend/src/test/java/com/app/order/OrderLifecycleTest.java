@@ -0,0 +1,89 @@
+package com.app.order;
+
+import com.app.model.Order;
+import com.app.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class OrderLifecycleTest {
+
+    // The wheel starts at the current time
+    private static final LocalDateTime START = LocalDateTime.now().plusMinutes(1).truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Object> events = new ArrayList<>();
+
+    @Test
+    void onlyOrdersInFlightAreLoadedAndTheyAdvanceOneStepPerInterval() {
+        Order placed = order("Placed", START);
+        Order shipped = order("Shipped", START.plusSeconds(5));
+        order("Delivered", START);
+        OrderLifecycle lifecycle = new OrderLifecycle(orderRepository, new TransactionTemplate(transactionManager),
+                events::add, 10, 1_000);
+
+        lifecycle.rehydrate();
+        assertThat(lifecycle.pending()).isEqualTo(2);
+
+        assertThat(lifecycle.tick(millis(START.plusSeconds(10)))).isEqualTo(1);
+        assertThat(statusOf(placed)).isEqualTo("On the Way");
+        assertThat(statusOf(shipped)).isEqualTo("Shipped");
+        assertThat(events).containsExactly(new OrderStatusChangedEvent(placed.getId(), null, "On the Way",
+                START.plusSeconds(10)));
+
+        assertThat(lifecycle.tick(millis(START.plusSeconds(15)))).isEqualTo(1);
+        assertThat(statusOf(shipped)).isEqualTo("Delivered");
+
+        lifecycle.tick(millis(START.plusSeconds(20)));
+        lifecycle.tick(millis(START.plusSeconds(30)));
+        assertThat(statusOf(placed)).isEqualTo("Delivered");
+        assertThat(lifecycle.pending()).isZero();
+    }
+
+    @Test
+    void anOrderChangedElsewhereIsNotOverwritten() {
+        Order placed = order("Placed", START);
+        OrderLifecycle lifecycle = new OrderLifecycle(orderRepository, new TransactionTemplate(transactionManager),
+                events::add, 10, 1_000);
+        lifecycle.rehydrate();
+
+        placed.setStatus("Cancelled");
+        orderRepository.saveAndFlush(placed);
+
+        assertThat(lifecycle.tick(millis(START.plusSeconds(10)))).isZero();
+        assertThat(statusOf(placed)).isEqualTo("Cancelled");
+        assertThat(events).isEmpty();
+    }
+
+    private Order order(String status, LocalDateTime since) {
+        return orderRepository.saveAndFlush(Order.builder().status(status).orderDate(since).statusUpdatedAt(since)
+                .build());
+    }
+
+    private String statusOf(Order order) {
+        entityManager.clear();
+        return orderRepository.findById(order.getId()).orElseThrow().getStatus();
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,58 @@
+package com.app.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void timersFireOnceTheirDeadlinePasses() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 8, 0);
+        wheel.schedule("a", 2_500);
+        wheel.schedule("b", 3_000);
+        wheel.schedule("c", 7_000);
+
+        assertThat(wheel.advance(2_000)).isEmpty();
+        assertThat(wheel.advance(3_000)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.advance(6_999)).isEmpty();
+        assertThat(wheel.advance(7_000)).containsExactly("c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesBeyondOneTurnWaitForTheirRound() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 4, 0);
+        wheel.schedule("near", 1_000);
+        wheel.schedule("far", 9_000); // same slot, two turns later
+
+        assertThat(wheel.advance(1_000)).containsExactly("near");
+        assertThat(wheel.advance(5_000)).isEmpty();
+        assertThat(wheel.advance(9_000)).containsExactly("far");
+    }
+
+    @Test
+    void aLongPauseStillFiresEverythingDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 4, 0);
+        for (int i = 1; i <= 10; i++) {
+            wheel.schedule("t" + i, i * 1_000L);
+        }
+
+        List<String> due = wheel.advance(60_000);
+
+        assertThat(due).hasSize(10);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlineFiresOnTheNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 4, 0);
+        wheel.advance(5_000);
+
+        wheel.schedule("late", 1_000);
+
+        assertThat(wheel.advance(5_500)).containsExactly("late");
+    }
+}
@@ -0,0 +1,150 @@
+package com.app.outbox;
+
+import com.app.model.OutboxEvent;
+import com.app.repository.OutboxEventRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class OutboxDispatcherTest {
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> handled = new ArrayList<>();
+
+    @Test
+    void handledEventsAreMarkedDoneInOneBatch() {
+        Long first = add("MAIL", 1L);
+        Long second = add("MAIL", 2L);
+        OutboxDispatcher dispatcher = dispatcher(handler("MAIL", false));
+
+        assertThat(dispatcher.dispatchBatch()).isEqualTo(2);
+
+        assertThat(handled).containsExactly(1L, 2L);
+        assertThat(reload(first).getStatus()).isEqualTo(OutboxEvent.Status.DONE);
+        assertThat(reload(second).getProcessedAt()).isNotNull();
+        assertThat(dispatcher.dispatchBatch()).isZero();
+    }
+
+    @Test
+    void failuresAreRetriedLaterWithBackoff() {
+        Long id = add("MAIL", 1L);
+        OutboxDispatcher dispatcher = dispatcher(handler("MAIL", true));
+
+        dispatcher.dispatchBatch();
+
+        OutboxEvent event = reload(id);
+        assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.PENDING);
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getLastError()).isEqualTo("SMTP down");
+        assertThat(event.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(3));
+        // Not due again yet
+        assertThat(dispatcher.dispatchBatch()).isZero();
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() {
+        Long id = add("MAIL", 1L);
+        OutboxEvent event = reload(id);
+        event.setAttempts(OutboxDispatcher.MAX_ATTEMPTS - 1);
+        outboxEventRepository.saveAndFlush(event);
+
+        dispatcher(handler("MAIL", true)).dispatchBatch();
+
+        assertThat(reload(id).getStatus()).isEqualTo(OutboxEvent.Status.FAILED);
+    }
+
+    @Test
+    void slowHandlerIsCutOffAndTheRestOfTheBatchReleased() {
+        Long slow = add("MAIL", 1L);
+        Long next = add("MAIL", 2L);
+        OutboxHandler hanging = new OutboxHandler() {
+            @Override
+            public String type() {
+                return "MAIL";
+            }
+
+            @Override
+            public void handle(OutboxEvent event) {
+                try {
+                    Thread.sleep(30_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        // A one second timeout leaves room for one handler in a two second lease
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxEventRepository,
+                new TransactionTemplate(transactionManager), List.of(hanging), 10, 2, 7, 1);
+
+        assertThat(dispatcher.dispatchBatch()).isEqualTo(2);
+
+        OutboxEvent timedOut = reload(slow);
+        assertThat(timedOut.getAttempts()).isEqualTo(1);
+        assertThat(timedOut.getLastError()).isEqualTo("Timed out after 1s");
+        OutboxEvent released = reload(next);
+        assertThat(released.getAttempts()).isZero();
+        assertThat(released.getNextAttemptAt()).isBeforeOrEqualTo(LocalDateTime.now());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void backoffDoublesUpToACap() {
+        assertThat(OutboxDispatcher.backoff(1)).hasSeconds(5);
+        assertThat(OutboxDispatcher.backoff(2)).hasSeconds(10);
+        assertThat(OutboxDispatcher.backoff(4)).hasSeconds(40);
+        assertThat(OutboxDispatcher.backoff(30)).hasMinutes(30);
+    }
+
+    private OutboxDispatcher dispatcher(OutboxHandler handler) {
+        return new OutboxDispatcher(outboxEventRepository, new TransactionTemplate(transactionManager),
+                List.of(handler), 10, 60, 7, 5);
+    }
+
+    private OutboxHandler handler(String type, boolean failing) {
+        return new OutboxHandler() {
+            @Override
+            public String type() {
+                return type;
+            }
+
+            @Override
+            public void handle(OutboxEvent event) {
+                if (failing) {
+                    throw new RuntimeException("SMTP down");
+                }
+                handled.add(event.getAggregateId());
+            }
+        };
+    }
+
+    private Long add(String type, Long aggregateId) {
+        new Outbox(outboxEventRepository).add(type, aggregateId);
+        entityManager.flush();
+        entityManager.clear();
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> aggregateId.equals(event.getAggregateId()))
+                .findFirst().orElseThrow().getId();
+    }
+
+    private OutboxEvent reload(Long id) {
+        entityManager.flush();
+        entityManager.clear();
+        return outboxEventRepository.findById(id).orElseThrow();
+    }
+}
@@ -0,0 +1,80 @@
+package com.app.search;
+
+import com.app.catalog.ProductChangedEvent;
+import com.app.model.Product;
+import com.app.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Product> products = List.of(
+                product(1L, "iPhone 15 Pro", "Apple flagship with A17 Pro chip.", "Mobiles"),
+                product(2L, "Samsung Galaxy S24 Ultra", "AI-powered Galaxy with S Pen.", "Mobiles"),
+                product(3L, "MacBook Air M3", "Supercharged by M3 chip, all-day battery.", "Laptops"),
+                product(4L, "Sony WH-1000XM5", "Industry-leading noise cancellation headphones.", "Headphones"));
+
+        ProductRepository repository = mock(ProductRepository.class);
+        doAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(1);
+            products.forEach(consumer);
+            return null;
+        }).when(repository).forEachProduct(anyInt(), any());
+
+        index = new ProductSearchIndex(repository);
+        index.rebuild();
+    }
+
+    @Test
+    void ranksTitleMatchesFirst() {
+        List<SearchHit> hits = index.search("chip", 10);
+
+        assertThat(hits).extracting(SearchHit::id).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(index.search("galaxy", 10).get(0).id()).isEqualTo(2L);
+    }
+
+    @Test
+    void matchesPrefixesAndSingleTypos() {
+        assertThat(index.search("macb", 10)).extracting(SearchHit::id).containsExactly(3L);
+        assertThat(index.search("samsnug", 10)).extracting(SearchHit::id).containsExactly(2L);
+        assertThat(index.search("headphnes", 10)).extracting(SearchHit::id).containsExactly(4L);
+    }
+
+    @Test
+    void followsProductChanges() {
+        Product updated = product(3L, "MacBook Pro M3", "Pro laptop.", "Laptops");
+        index.onProductChanged(ProductChangedEvent.updated("Laptops", updated));
+        index.onProductChanged(ProductChangedEvent.deleted(1L, "Mobiles"));
+
+        assertThat(index.search("battery", 10)).isEmpty();
+        assertThat(index.search("pro", 10)).extracting(SearchHit::id).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void oneEditDistance() {
+        assertThat(ProductSearchIndex.withinOneEdit("galaxy", "galaxy")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("galaxy", "galxay")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("galaxy", "galax")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("galaxy", "gaalaxy")).isTrue();
+        assertThat(ProductSearchIndex.withinOneEdit("galaxy", "gxlaxz")).isFalse();
+    }
+
+    private static Product product(Long id, String title, String description, String category) {
+        return Product.builder().id(id).title(title).description(description).category(category)
+                .pricePaise(100_000).stock(5).build();
+    }
+}
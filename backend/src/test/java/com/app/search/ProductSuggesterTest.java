@@ -0,0 +1,69 @@
+package com.app.search;
+
+import com.app.catalog.ProductChangedEvent;
+import com.app.dto.ProductSales;
+import com.app.model.Product;
+import com.app.repository.OrderRepository;
+import com.app.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSuggesterTest {
+
+    private ProductSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        List<Product> products = List.of(
+                product(1L, "iPhone 15 Pro", "Mobiles"),
+                product(2L, "iPhone 14", "Mobiles"),
+                product(3L, "iPad Pro", "Tablets"),
+                product(4L, "MacBook Pro M3", "Laptops"));
+
+        ProductRepository productRepository = mock(ProductRepository.class);
+        doAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(1);
+            products.forEach(consumer);
+            return null;
+        }).when(productRepository).forEachProduct(anyInt(), any());
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.sumUnitsSoldByProduct()).thenReturn(List.of(
+                new ProductSales(2L, 40L), new ProductSales(1L, 10L), new ProductSales(4L, 25L)));
+
+        suggester = new ProductSuggester(productRepository, orderRepository);
+        suggester.rebuild();
+    }
+
+    @Test
+    void ranksPrefixMatchesByPopularity() {
+        assertThat(suggester.suggest("ip", 10)).extracting(Suggestion::productId).containsExactly(2L, 1L, 3L);
+        assertThat(suggester.suggest("pro", 10)).extracting(Suggestion::productId).containsExactly(4L, 1L, 3L);
+        assertThat(suggester.suggest("lap", 10)).extracting(Suggestion::text).containsExactly("Laptops");
+        assertThat(suggester.suggest("ip", 1)).extracting(Suggestion::productId).containsExactly(2L);
+    }
+
+    @Test
+    void followsProductChangesAndSales() {
+        suggester.onProductChanged(ProductChangedEvent.updated("Mobiles", product(2L, "Galaxy S24", "Mobiles")));
+        suggester.onProductChanged(ProductChangedEvent.created(product(5L, "iPad Air", "Tablets")));
+        suggester.recordSale(5L, 100);
+        suggester.applySales();
+
+        assertThat(suggester.suggest("ip", 10)).extracting(Suggestion::productId).containsExactly(5L, 1L, 3L);
+        assertThat(suggester.suggest("galaxy", 10)).extracting(Suggestion::productId).containsExactly(2L);
+    }
+
+    private static Product product(Long id, String title, String category) {
+        return Product.builder().id(id).title(title).category(category).pricePaise(100).stock(1).build();
+    }
+}
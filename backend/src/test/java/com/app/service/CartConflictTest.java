@@ -0,0 +1,145 @@
+package com.app.service;
+
+import com.app.cart.CartLine;
+import com.app.cart.CartPersister;
+import com.app.cart.CartState;
+import com.app.cart.CartStore;
+import com.app.cart.DatabaseCartStore;
+import com.app.dto.ProductCard;
+import com.app.inventory.FlashSaleInventory;
+import com.app.model.Product;
+import com.app.model.Role;
+import com.app.model.User;
+import com.app.repository.CartRepository;
+import com.app.repository.ProductRepository;
+import com.app.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two instances writing the same cart, each through its own persister and
+ * committing on its own, as they would against a shared database.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartConflictTest {
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private CartPersister ours;
+    private CartPersister theirs;
+    private User user;
+    private Product phone;
+    private Product charger;
+
+    @BeforeEach
+    void setUp() {
+        ours = new CartPersister(cartRepository, entityManager, transactionManager);
+        theirs = new CartPersister(cartRepository, entityManager, transactionManager);
+        user = userRepository.save(User.builder().username("ravi").email("ravi@example.com")
+                .role(Role.USER).enabled(true).build());
+        phone = productRepository.save(Product.builder().title("Phone").pricePaise(1_500_000).category("Mobiles")
+                .stock(10).build());
+        charger = productRepository.save(Product.builder().title("Charger").pricePaise(150_000).category("Mobiles")
+                .stock(10).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void staleSnapshotIsRejected() {
+        ours.save(List.of(ours.load(user.getId()).snapshot()));
+        CartState mine = ours.load(user.getId());
+        CartState other = theirs.load(user.getId());
+
+        other.apply(List.of(new CartLine(charger.getId(), 1, charger.getPricePaise())), List.of());
+        theirs.save(List.of(other.snapshot()));
+        mine.apply(List.of(new CartLine(phone.getId(), 1, phone.getPricePaise())), List.of());
+
+        assertThatThrownBy(() -> ours.save(List.of(mine.snapshot())))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(ours.load(user.getId()).snapshot().lines()).extracting(CartLine::productId)
+                .containsExactly(charger.getId());
+    }
+
+    @Test
+    void writeLandingBetweenLoadAndSaveIsRetriedFromAFreshLoad() {
+        DatabaseCartStore database = new DatabaseCartStore(ours);
+        AtomicBoolean raced = new AtomicBoolean();
+        CartStore racing = new CartStore() {
+            @Override
+            public CartState get(Long userId) {
+                CartState cart = database.get(userId);
+                if (raced.compareAndSet(false, true)) {
+                    // The other instance adds a charger after we loaded the cart
+                    CartState other = theirs.load(userId);
+                    other.apply(List.of(new CartLine(charger.getId(), 1, charger.getPricePaise())), List.of());
+                    theirs.save(List.of(other.snapshot()));
+                }
+                return cart;
+            }
+
+            @Override
+            public void changed(CartState cart) {
+                database.changed(cart);
+            }
+
+            @Override
+            public void flush(Long userId) {
+                database.flush(userId);
+            }
+
+            @Override
+            public Lock writeLock() {
+                return database.writeLock();
+            }
+        };
+        ProductService productService = mock(ProductService.class);
+        when(productService.getCards(any())).thenReturn(Map.of(phone.getId(), new ProductCard(phone.getId(),
+                phone.getTitle(), phone.getPricePaise(), null, phone.getCategory(), phone.getStock())));
+        CartService cartService = new CartService(racing, ours, productService, mock(FlashSaleInventory.class));
+
+        cartService.addToCart(user, phone.getId(), 2);
+
+        assertThat(raced).isTrue();
+        assertThat(ours.load(user.getId()).snapshot().lines())
+                .extracting(CartLine::productId, CartLine::quantity)
+                .containsExactlyInAnyOrder(
+                        tuple(charger.getId(), 1),
+                        tuple(phone.getId(), 2));
+    }
+}
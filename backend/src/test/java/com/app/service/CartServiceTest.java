@@ -0,0 +1,161 @@
+package com.app.service;
+
+import com.app.cart.CartLine;
+import com.app.cart.CartPersister;
+import com.app.cart.CartState;
+import com.app.cart.CartStore;
+import com.app.dto.CartDelta;
+import com.app.dto.CartOperation;
+import com.app.dto.CartView;
+import com.app.dto.ProductCard;
+import com.app.inventory.FlashSaleInventory;
+import com.app.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartServiceTest {
+
+    private final CartStore store = mock(CartStore.class);
+    private final ProductService productService = mock(ProductService.class);
+    private final CartService cartService = new CartService(store, mock(CartPersister.class), productService,
+            mock(FlashSaleInventory.class));
+    private final User user = User.builder().id(1L).build();
+    private CartState cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new CartState(1L);
+        cart.apply(List.of(new CartLine(10L, 1, 10_000)), List.of());
+        cart.apply(List.of(new CartLine(11L, 2, 2_000)), List.of());
+        when(store.get(anyLong())).thenReturn(cart);
+        when(productService.getCards(any())).thenAnswer(call -> {
+            Map<Long, ProductCard> cards = new HashMap<>();
+            for (Long id : call.<Collection<Long>>getArgument(0)) {
+                if (id < 100) {
+                    cards.put(id, new ProductCard(id, "Item " + id, 500 * id, null, "Misc", 10));
+                }
+            }
+            return cards;
+        });
+    }
+
+    @Test
+    void batchIsAppliedAsOneRevision() {
+        long before = cart.revision();
+
+        CartDelta delta = cartService.updateCart(user, List.of(
+                new CartOperation(CartOperation.Type.SET, 10L, 4),
+                new CartOperation(CartOperation.Type.INCREMENT, 12L, 3),
+                new CartOperation(CartOperation.Type.INCREMENT, 12L, 1),
+                CartOperation.remove(11L)));
+
+        assertThat(delta.full()).isFalse();
+        assertThat(delta.sinceRevision()).isEqualTo(before);
+        assertThat(delta.revision()).isEqualTo(before + 1);
+        assertThat(delta.items()).extracting(CartView.Item::id, CartView.Item::quantity)
+                .containsExactlyInAnyOrder(
+                        tuple(10L, 4),
+                        tuple(12L, 4));
+        assertThat(delta.removed()).containsExactly(11L);
+        assertThat(delta.totalPaise()).isEqualTo(4 * 10_000 + 4 * 6_000);
+        assertThat(delta.itemCount()).isEqualTo(2);
+        verify(store, times(1)).changed(cart);
+    }
+
+    @Test
+    void failingOperationLeavesTheCartUntouched() {
+        long before = cart.revision();
+
+        assertThatThrownBy(() -> cartService.updateCart(user, List.of(
+                new CartOperation(CartOperation.Type.SET, 10L, 9),
+                CartOperation.increment(500L, 1))))
+                .hasMessage("Product not found");
+
+        assertThat(cart.revision()).isEqualTo(before);
+        assertThat(cart.line(10L).quantity()).isEqualTo(1);
+        verify(store, never()).changed(any());
+    }
+
+    @Test
+    void catchUpFallsBackToTheWholeCartWhenTooFarBehind() {
+        long start = cart.revision();
+        for (int i = 0; i < 40; i++) {
+            cartService.addToCart(user, 10L, 1);
+        }
+
+        CartDelta recent = cartService.getCartChanges(user, cart.revision() - 3);
+        assertThat(recent.full()).isFalse();
+        assertThat(recent.items()).extracting(CartView.Item::id).containsExactly(10L);
+
+        CartDelta stale = cartService.getCartChanges(user, start);
+        assertThat(stale.full()).isTrue();
+        assertThat(stale.items()).hasSize(2);
+        assertThat(stale.revision()).isEqualTo(cart.revision());
+    }
+
+    @Test
+    void concurrentAddsForOneUserAreNotLost() throws Exception {
+        // Like the database store: every request loads its own copy and saves it back
+        Map<Long, List<CartLine>> table = new ConcurrentHashMap<>();
+        ReentrantLock writeLock = new ReentrantLock();
+        CartStore writeThrough = new CartStore() {
+            @Override
+            public CartState get(Long userId) {
+                CartState copy = new CartState(userId);
+                copy.apply(table.getOrDefault(userId, List.of()), List.of());
+                return copy;
+            }
+
+            @Override
+            public void changed(CartState cart) {
+                table.put(cart.userId(), cart.snapshot().lines());
+            }
+
+            @Override
+            public void flush(Long userId) {
+            }
+
+            @Override
+            public Lock writeLock() {
+                return writeLock;
+            }
+        };
+        CartService service = new CartService(writeThrough, mock(CartPersister.class), productService,
+                mock(FlashSaleInventory.class));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> adds = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            adds.add(pool.submit(() -> service.addToCart(user, 10L, 1)));
+        }
+        for (Future<?> add : adds) {
+            add.get();
+        }
+        pool.shutdown();
+
+        assertThat(table.get(1L)).singleElement().extracting(CartLine::quantity).isEqualTo(400);
+    }
+}
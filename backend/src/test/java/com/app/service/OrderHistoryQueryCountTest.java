@@ -0,0 +1,139 @@
+package com.app.service;
+
+import com.app.dto.CursorPage;
+import com.app.dto.OrderDetail;
+import com.app.dto.OrderSummary;
+import com.app.dto.ProductCard;
+import com.app.inventory.StockReservations;
+import com.app.model.Order;
+import com.app.model.OrderItem;
+import com.app.model.Product;
+import com.app.model.Role;
+import com.app.model.User;
+import com.app.order.OrderLifecycle;
+import com.app.outbox.Outbox;
+import com.app.repository.OrderRepository;
+import com.app.repository.ProductRepository;
+import com.app.repository.UserRepository;
+import com.app.search.ProductSuggester;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * History pages and order details must cost the same number of statements
+ * however many orders, lines and products are involved.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderHistoryQueryCountTest {
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ProductService productService = mock(ProductService.class);
+    private OrderService orderService;
+    private Statistics statistics;
+    private User user;
+    private final List<Order> orders = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(orderRepository, productRepository, productService, mock(CartService.class),
+                mock(ProductSuggester.class), mock(StockReservations.class), mock(TransactionTemplate.class),
+                mock(OrderLifecycle.class), mock(Outbox.class));
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        when(productService.getCards(any())).thenAnswer(call -> {
+            Map<Long, ProductCard> cards = new HashMap<>();
+            for (Long id : call.<Collection<Long>>getArgument(0)) {
+                cards.put(id, new ProductCard(id, "Item " + id, 1_000, null, "Misc", 10));
+            }
+            return cards;
+        });
+
+        user = userRepository.save(User.builder().username("asha").email("asha@example.com")
+                .role(Role.USER).enabled(true).build());
+        User other = userRepository.save(User.builder().username("ravi").email("ravi@example.com")
+                .role(Role.USER).enabled(true).build());
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            products.add(productRepository.save(Product.builder().title("Item " + i).pricePaise(1_000)
+                    .category("Misc").stock(10).build()));
+        }
+        for (int i = 0; i < 7; i++) {
+            Order order = Order.builder().user(i == 3 ? other : user).orderDate(LocalDateTime.now())
+                    .status("Placed").paymentId("COD").totalAmountPaise(4_000).build();
+            List<OrderItem> items = new ArrayList<>();
+            for (Product product : products) {
+                items.add(OrderItem.builder().order(order).product(product).quantity(1).pricePaise(1_000).build());
+            }
+            order.setOrderItems(items);
+            orders.add(orderRepository.save(order));
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void historyPagesAreOneQueryPlusACountOnTheFirst() {
+        CursorPage<OrderSummary> first = orderService.getOrderHistory(user, null, 4);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(first.content()).extracting(OrderSummary::id)
+                .containsExactly(orders.get(6).getId(), orders.get(5).getId(), orders.get(4).getId(),
+                        orders.get(2).getId());
+        assertThat(first.content()).allSatisfy(summary -> assertThat(summary.itemCount()).isEqualTo(4));
+        assertThat(first.approximateTotal()).isEqualTo(6);
+        assertThat(first.hasNext()).isTrue();
+
+        statistics.clear();
+        CursorPage<OrderSummary> second = orderService.getOrderHistory(user, first.nextCursor(), 4);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(second.approximateTotal()).isEqualTo(-1);
+
+        assertThat(second.content()).extracting(OrderSummary::id)
+                .containsExactly(orders.get(1).getId(), orders.get(0).getId());
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void orderDetailIsOneQuery() {
+        OrderDetail detail = orderService.getOrder(user, orders.get(0).getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(detail.orderItems()).hasSize(4)
+                .allSatisfy(item -> assertThat(item.product()).isNotNull());
+    }
+
+    @Test
+    void anotherUsersOrderIsNotFound() {
+        assertThatThrownBy(() -> orderService.getOrder(user, orders.get(3).getId()))
+                .hasMessage("Order not found");
+    }
+}
@@ -33,9 +33,7 @@ const ProductCard = ({ product, onAddToCart }) => {
                         {product.title}
                     </h3>
                 </Link>
-                <p className="text-gray-500 dark:text-gray-400 text-sm mb-6 line-clamp-2 font-medium flex-grow">
-                    {product.description}
-                </p>
+                <div className="mb-6 flex-grow" />
 
                 <div className="flex items-center justify-between mt-auto pt-5 border-t border-gray-50 dark:border-gray-700/50">
                     <div className="flex flex-col">
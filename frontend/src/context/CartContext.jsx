@@ -1,10 +1,19 @@
-import React, { createContext, useContext, useState, useEffect } from "react";
+import React, { createContext, useContext, useState, useEffect, useRef } from "react";
 import { useAuth } from "./AuthContext";
 
 const CartContext = createContext();
 
 const BACKEND = "http://localhost:8080";
 
+const toCartItem = (item) => ({
+    id: item.product.id,
+    title: item.product.title,
+    price: item.product.price,
+    imageUrl: item.product.imageUrl,
+    quantity: item.quantity,
+    cartItemId: item.id,
+});
+
 const authFetch = (url, options = {}) => {
     const token = localStorage.getItem("token");
     return fetch(`${BACKEND}${url}`, {
@@ -19,6 +28,8 @@ const authFetch = (url, options = {}) => {
 
 export const CartProvider = ({ children }) => {
     const { user, token } = useAuth();
+    // Server cart revision the items below reflect; mutation responses are deltas against it
+    const revision = useRef(null);
 
     const [cartItems, setCartItems] = useState(() => {
         try {
@@ -55,20 +66,35 @@ export const CartProvider = ({ children }) => {
             const data = await res.json();
             const items = (data.items || [])
                 .filter(item => item && item.product)
-                .map(item => ({
-                    id: item.product.id,
-                    title: item.product.title,
-                    price: item.product.price,
-                    imageUrl: item.product.imageUrl,
-                    quantity: item.quantity,
-                    cartItemId: item.id,
-                }));
+                .map(toCartItem);
             setCartItems(items);
+            revision.current = data.revision;
         } catch (err) {
             console.error("[Cart] fetchCart error:", err.message);
         }
     };
 
+    // Merges a mutation response; refetches if another tab changed the cart in between
+    const applyDelta = async (delta) => {
+        if (!delta.full && delta.sinceRevision !== revision.current) {
+            await fetchCart();
+            return;
+        }
+        const changed = (delta.items || []).filter(item => item && item.product).map(toCartItem);
+        if (delta.full) {
+            setCartItems(changed);
+        } else {
+            const byId = new Map(changed.map(c => [c.id, c]));
+            const removed = new Set(delta.removed || []);
+            setCartItems(prev => {
+                const kept = prev.filter(i => !removed.has(i.id)).map(i => byId.get(i.id) || i);
+                const added = changed.filter(c => !prev.some(i => i.id === c.id));
+                return [...kept, ...added];
+            });
+        }
+        revision.current = delta.revision;
+    };
+
     const addToCart = async (product) => {
         if (user && token) {
             try {
@@ -81,7 +107,7 @@ export const CartProvider = ({ children }) => {
                     console.error("[Cart] addToCart failed:", res.status, text);
                     return;
                 }
-                await fetchCart();
+                await applyDelta(await res.json());
             } catch (err) {
                 console.error("[Cart] addToCart error:", err.message);
             }
@@ -100,8 +126,11 @@ export const CartProvider = ({ children }) => {
         if (user && token) {
             try {
                 const res = await authFetch(`/api/cart/remove/${productId}`, { method: "DELETE" });
-                if (!res.ok) console.error("[Cart] removeFromCart failed:", res.status);
-                await fetchCart();
+                if (!res.ok) {
+                    console.error("[Cart] removeFromCart failed:", res.status);
+                    return;
+                }
+                await applyDelta(await res.json());
             } catch (err) {
                 console.error("[Cart] removeFromCart error:", err.message);
             }
@@ -119,8 +148,11 @@ export const CartProvider = ({ children }) => {
                     method: "POST",
                     body: JSON.stringify({ productId, quantity: amount }),
                 });
-                if (!res.ok) console.error("[Cart] updateQuantity failed:", res.status);
-                await fetchCart();
+                if (!res.ok) {
+                    console.error("[Cart] updateQuantity failed:", res.status);
+                    return;
+                }
+                await applyDelta(await res.json());
             } catch (err) {
                 console.error("[Cart] updateQuantity error:", err.message);
             }
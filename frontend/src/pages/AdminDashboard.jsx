@@ -32,10 +32,19 @@ const AdminDashboard = () => {
 
     const fetchProducts = async () => {
         try {
-            const res = await fetch(`${BACKEND}/api/products?size=1000`, { headers: authHeaders() });
-            if (!res.ok) throw new Error(`HTTP ${res.status}`);
-            const data = await res.json();
-            setProducts(Array.isArray(data) ? data : (data.content ?? []));
+            // Listing pages are capped at 100, so walk the whole catalog by cursor
+            const all = [];
+            let cursor = null;
+            do {
+                const params = new URLSearchParams({ size: 100 });
+                if (cursor) params.set("cursor", cursor);
+                const res = await fetch(`${BACKEND}/api/products/scroll?${params}`, { headers: authHeaders() });
+                if (!res.ok) throw new Error(`HTTP ${res.status}`);
+                const data = await res.json();
+                all.push(...(data.content ?? []));
+                cursor = data.hasNext ? data.nextCursor : null;
+            } while (cursor);
+            setProducts(all);
         } catch (error) {
             console.error("Failed to fetch products", error);
         } finally {
@@ -104,10 +113,18 @@ const AdminDashboard = () => {
         }
     };
 
-    const handleEdit = (product) => {
+    const handleEdit = async (card) => {
+        // The listing only carries card fields; load the full product for its description
+        let product = card;
+        try {
+            const res = await fetch(`${BACKEND}/api/products/${card.id}`, { headers: authHeaders() });
+            if (res.ok) product = await res.json();
+        } catch (error) {
+            console.error("Failed to load product details", error);
+        }
         setFormData({
             title: product.title,
-            description: product.description,
+            description: product.description ?? "",
             price: product.price,
             category: product.category,
             stock: product.stock,
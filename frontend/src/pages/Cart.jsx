@@ -35,13 +35,16 @@ const Cart = () => {
             setLoading(true);
             try {
                 const res = await authPost("/api/orders/create", { paymentId: "COD", shippingAddress }, token);
-                if (!res.ok) throw new Error(`HTTP ${res.status}`);
+                if (!res.ok) {
+                    const body = await res.json().catch(() => ({}));
+                    throw new Error(body.error || `HTTP ${res.status}`);
+                }
                 alert("Order Placed Successfully! Redirecting to orders...");
                 clearCart();
                 navigate('/orders');
             } catch (err) {
                 console.error("COD order failed:", err);
-                alert("Failed to place order. Please try again.");
+                alert(`Failed to place order: ${err.message}`);
             } finally {
                 setLoading(false);
             }
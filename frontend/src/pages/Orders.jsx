@@ -10,6 +10,7 @@ import {
     IconBoxSeam,
     IconClock,
     IconShoppingBag,
+    IconChevronDown,
 } from "@tabler/icons-react";
 
 const STEPS = [
@@ -27,7 +28,9 @@ const STATUS_COLORS = {
     "Cancelled": "bg-red-100 text-red-700 dark:bg-red-900/40 dark:text-red-300",
 };
 
-const POLL_SECONDS = 10;
+// Wait before reconnecting a dropped stream, unless the server asked otherwise
+const RECONNECT_MS = 3000;
+const PAGE_SIZE = 10;
 
 const getStepIndex = (status) => STEPS.findIndex((s) => s.status === status);
 
@@ -35,18 +38,37 @@ const Orders = () => {
     const { token } = useAuth();
     const [orders, setOrders] = useState([]);
     const [loading, setLoading] = useState(true);
-    const [countdown, setCountdown] = useState(POLL_SECONDS);
-    const countdownRef = useRef(POLL_SECONDS);
+    const [live, setLive] = useState(false);
+    const ordersRef = useRef([]);
 
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
+    // Lines are loaded per order, only when it is expanded
+    const [details, setDetails] = useState({});
+    const [expanded, setExpanded] = useState({});
+    const pagedRef = useRef(false);
+
+    const fetchPage = async (cursor) => {
+        const token = localStorage.getItem("token");
+        const params = new URLSearchParams({ size: PAGE_SIZE });
+        if (cursor) params.set("cursor", cursor);
+        const res = await fetch(`${BACKEND}/api/orders?${params}`, {
+            headers: { Authorization: `Bearer ${token}` },
+        });
+        if (!res.ok) throw new Error(`HTTP ${res.status}`);
+        return res.json();
+    };
+
+    // Refreshes the newest page, keeping any older pages already loaded
     const fetchOrders = async () => {
         try {
-            const token = localStorage.getItem("token");
-            const res = await fetch(`${BACKEND}/api/orders`, {
-                headers: { Authorization: `Bearer ${token}` },
+            const page = await fetchPage(null);
+            setOrders((prev) => {
+                const fresh = new Map(page.content.map((o) => [o.id, o]));
+                const older = prev.filter((o) => !fresh.has(o.id));
+                return [...page.content, ...older].sort((a, b) => b.id - a.id);
             });
-            if (!res.ok) throw new Error(`HTTP ${res.status}`);
-            const data = await res.json();
-            setOrders(data.sort((a, b) => new Date(b.orderDate) - new Date(a.orderDate)));
+            if (!pagedRef.current) setNextCursor(page.nextCursor);
         } catch (err) {
             console.error("Error fetching orders:", err);
         } finally {
@@ -54,21 +76,130 @@ const Orders = () => {
         }
     };
 
+    const loadMore = async () => {
+        if (!nextCursor || loadingMore) return;
+        setLoadingMore(true);
+        try {
+            const page = await fetchPage(nextCursor);
+            pagedRef.current = true;
+            setOrders((prev) => {
+                const known = new Set(prev.map((o) => o.id));
+                return [...prev, ...page.content.filter((o) => !known.has(o.id))];
+            });
+            setNextCursor(page.nextCursor);
+        } catch (err) {
+            console.error("Error fetching orders:", err);
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
+    const toggleItems = async (orderId) => {
+        const open = !expanded[orderId];
+        setExpanded((prev) => ({ ...prev, [orderId]: open }));
+        if (!open || details[orderId]) return;
+        try {
+            const token = localStorage.getItem("token");
+            const res = await fetch(`${BACKEND}/api/orders/${orderId}`, {
+                headers: { Authorization: `Bearer ${token}` },
+            });
+            if (!res.ok) throw new Error(`HTTP ${res.status}`);
+            const detail = await res.json();
+            setDetails((prev) => ({ ...prev, [orderId]: detail }));
+        } catch (err) {
+            console.error("Error fetching order:", err);
+        }
+    };
+
+    useEffect(() => {
+        ordersRef.current = orders;
+    }, [orders]);
+
+    // Applies a pushed status change; statuses only move forward, so a stale one is ignored
+    const applyStatus = (update) => {
+        if (!ordersRef.current.some((o) => o.id === update.id)) {
+            // Placed from another tab or device
+            fetchOrders();
+            return;
+        }
+        const next = getStepIndex(update.status);
+        setOrders((prev) =>
+            prev.map((o) =>
+                o.id === update.id && (next < 0 || next >= getStepIndex(o.status))
+                    ? { ...o, status: update.status }
+                    : o
+            )
+        );
+    };
+
     useEffect(() => {
         if (!token) return;
         fetchOrders();
 
-        // Countdown ticker — fires every second
-        const ticker = setInterval(() => {
-            countdownRef.current -= 1;
-            if (countdownRef.current <= 0) {
-                countdownRef.current = POLL_SECONDS;
-                fetchOrders();
+        // Status changes arrive over server-sent events. fetch() is used instead of
+        // EventSource because the stream needs the Authorization header.
+        const controller = new AbortController();
+        let lastEventId = null;
+        let reconnectMs = RECONNECT_MS;
+        let timer;
+
+        const handleEvent = (block) => {
+            let event = "message";
+            let data = "";
+            for (const line of block.split("\n")) {
+                if (line.startsWith(":")) continue;
+                const colon = line.indexOf(":");
+                const field = colon < 0 ? line : line.slice(0, colon);
+                const value = colon < 0 ? "" : line.slice(colon + 1).replace(/^ /, "");
+                if (field === "id") lastEventId = value;
+                else if (field === "event") event = value;
+                else if (field === "data") data += (data ? "\n" : "") + value;
+                else if (field === "retry") reconnectMs = Number(value) || reconnectMs;
             }
-            setCountdown(countdownRef.current);
-        }, 1000);
+            if (event === "status" && data) applyStatus(JSON.parse(data));
+            // Too far behind to catch up from lastEventId
+            if (event === "reset") fetchOrders();
+        };
 
-        return () => clearInterval(ticker);
+        const connect = async () => {
+            try {
+                const headers = {
+                    Authorization: `Bearer ${localStorage.getItem("token")}`,
+                    Accept: "text/event-stream",
+                };
+                if (lastEventId) headers["Last-Event-ID"] = lastEventId;
+                const res = await fetch(`${BACKEND}/api/orders/stream`, {
+                    headers,
+                    signal: controller.signal,
+                });
+                if (!res.ok) throw new Error(`HTTP ${res.status}`);
+                setLive(true);
+
+                const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+                let buffer = "";
+                for (;;) {
+                    const { value, done } = await reader.read();
+                    if (done) break;
+                    buffer += value.replace(/\r\n?/g, "\n");
+                    let end;
+                    while ((end = buffer.indexOf("\n\n")) >= 0) {
+                        handleEvent(buffer.slice(0, end));
+                        buffer = buffer.slice(end + 2);
+                    }
+                }
+            } catch (err) {
+                if (controller.signal.aborted) return;
+                console.error("Order stream dropped:", err);
+            }
+            setLive(false);
+            if (!controller.signal.aborted) timer = setTimeout(connect, reconnectMs);
+        };
+        connect();
+
+        return () => {
+            controller.abort();
+            clearTimeout(timer);
+        };
     }, [token]);
 
     if (loading) {
@@ -93,16 +224,11 @@ const Orders = () => {
                     </h1>
                 </div>
 
-                {/* Small refresh countdown — top right */}
+                {/* Live updates indicator — top right */}
                 {orders.length > 0 && (
                     <div className="flex items-center gap-1.5 text-white/30 dark:text-white/20 select-none">
-                        <div
-                            className="w-4 h-4 rounded-full border border-white/20"
-                            style={{
-                                background: `conic-gradient(rgba(255,255,255,0.25) ${(countdown / POLL_SECONDS) * 360}deg, transparent 0deg)`,
-                            }}
-                        />
-                        <span className="text-[11px] tabular-nums">{countdown}s</span>
+                        <span className={`w-2 h-2 rounded-full ${live ? "bg-green-500 animate-pulse" : "bg-gray-400"}`} />
+                        <span className="text-[11px]">{live ? "Live" : "Reconnecting..."}</span>
                     </div>
                 )}
             </div>
@@ -126,6 +252,8 @@ const Orders = () => {
                         const currentStepIndex = getStepIndex(order.status);
                         const isCancelled = order.status === "Cancelled";
                         const isDelivered = order.status === "Delivered";
+                        const detail = details[order.id];
+                        const isExpanded = !!expanded[order.id];
                         const progressPct =
                             STEPS.length > 1
                                 ? (currentStepIndex / (STEPS.length - 1)) * 100
@@ -169,32 +297,46 @@ const Orders = () => {
                                 <div className="p-6">
                                     {/* Order Items */}
                                     <div className="space-y-3 mb-8">
-                                        {order.orderItems.map((item) => (
-                                            <div key={item.id} className="flex items-center justify-between">
-                                                <div className="flex items-center gap-4">
-                                                    <div className="w-14 h-14 bg-gray-100 dark:bg-gray-700 rounded-xl flex items-center justify-center overflow-hidden flex-shrink-0">
-                                                        {item.product?.imageUrl ? (
-                                                            <img
-                                                                src={`${IMAGE_BASE_URL}${item.product.imageUrl}`}
-                                                                alt={item.product.title}
-                                                                className="object-contain w-full h-full"
-                                                            />
-                                                        ) : (
-                                                            <IconPackage size={24} className="text-gray-400" />
-                                                        )}
-                                                    </div>
-                                                    <div>
-                                                        <p className="font-semibold text-gray-800 dark:text-white">
-                                                            {item.product?.title}
+                                        <button
+                                            onClick={() => toggleItems(order.id)}
+                                            className="flex items-center gap-1 text-sm font-medium text-violet-600 dark:text-violet-400 hover:underline"
+                                        >
+                                            {isExpanded ? "Hide" : "Show"} {order.itemCount} {order.itemCount === 1 ? "item" : "items"}
+                                            <IconChevronDown size={16} className={`transition-transform ${isExpanded ? "rotate-180" : ""}`} />
+                                        </button>
+                                        {isExpanded && !detail && (
+                                            <p className="text-sm text-gray-400">Loading items...</p>
+                                        )}
+                                        {isExpanded && detail && (
+                                            <>
+                                                {detail.orderItems.map((item) => (
+                                                    <div key={item.id} className="flex items-center justify-between">
+                                                        <div className="flex items-center gap-4">
+                                                            <div className="w-14 h-14 bg-gray-100 dark:bg-gray-700 rounded-xl flex items-center justify-center overflow-hidden flex-shrink-0">
+                                                                {item.product?.imageUrl ? (
+                                                                    <img
+                                                                        src={`${IMAGE_BASE_URL}${item.product.imageUrl}`}
+                                                                        alt={item.product.title}
+                                                                        className="object-contain w-full h-full"
+                                                                    />
+                                                                ) : (
+                                                                    <IconPackage size={24} className="text-gray-400" />
+                                                                )}
+                                                            </div>
+                                                            <div>
+                                                                <p className="font-semibold text-gray-800 dark:text-white">
+                                                                    {item.product?.title}
+                                                                </p>
+                                                                <p className="text-sm text-gray-400">Qty: {item.quantity}</p>
+                                                            </div>
+                                                        </div>
+                                                        <p className="font-semibold text-gray-600 dark:text-gray-300">
+                                                            ₹{item.price.toLocaleString("en-IN")}
                                                         </p>
-                                                        <p className="text-sm text-gray-400">Qty: {item.quantity}</p>
                                                     </div>
-                                                </div>
-                                                <p className="font-semibold text-gray-600 dark:text-gray-300">
-                                                    ₹{item.price.toLocaleString("en-IN")}
-                                                </p>
-                                            </div>
-                                        ))}
+                                                ))}
+                                            </>
+                                        )}
                                     </div>
 
                                     {/* Tracking Progress */}
@@ -247,11 +389,11 @@ const Orders = () => {
                                             </div>
 
                                             {/* Shipping address */}
-                                            {order.shippingAddress && (
+                                            {detail?.shippingAddress && (
                                                 <p className="text-xs text-gray-400 mt-4">
                                                     📦 Delivering to:{" "}
                                                     <span className="text-gray-600 dark:text-gray-300 font-medium">
-                                                        {order.shippingAddress}
+                                                        {detail.shippingAddress}
                                                     </span>
                                                 </p>
                                             )}
@@ -267,6 +409,18 @@ const Orders = () => {
                             </div>
                         );
                     })}
+
+                    {nextCursor && (
+                        <div className="flex justify-center">
+                            <button
+                                onClick={loadMore}
+                                disabled={loadingMore}
+                                className="px-6 py-2 bg-violet-600 text-white rounded-lg font-medium hover:bg-violet-700 transition-colors disabled:opacity-50"
+                            >
+                                {loadingMore ? "Loading..." : "Load older orders"}
+                            </button>
+                        </div>
+                    )}
                 </div>
             )}
         </div>